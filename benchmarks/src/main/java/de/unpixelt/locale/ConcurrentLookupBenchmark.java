@@ -0,0 +1,83 @@
+//  Copyright (C) 2022 Unp1xelt. All rights reserved.
+//
+//  This Source Code Form is subject to the terms of the Mozilla Public
+//  License, v. 2.0. If a copy of the MPL was not distributed with this
+//  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+//
+//  This Source Code Form is "Incompatible With Secondary Licenses", as
+//  defined by the Mozilla Public License, v. 2.0.
+
+package de.unpixelt.locale;
+
+import org.bukkit.Material;
+import org.bukkit.entity.Player;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Measures the {@code Translate} lookup path and the {@code LocaleCounter}
+ * while many threads use them at once, like async chat and packet listeners
+ * do. Compare the scores with {@code -t 1} to see the cost of contention.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(8)
+@Fork(1)
+public class ConcurrentLookupBenchmark {
+
+    private static final Locale[] LOCALES = {Locale.en_us, Locale.de_de, Locale.fr_fr, Locale.es_es};
+
+    @State(Scope.Benchmark)
+    public static class Shared {
+
+        final LocaleCounter counter = new LocaleCounter(new LocaleCache(new LocaleConfig()), new LocaleConfig());
+        final AtomicInteger threads = new AtomicInteger();
+
+        @Setup
+        public void setup() {
+            for (Locale locale : LOCALES) {
+                Translate.getReader(locale);
+                counter.increment(locale);
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class PerThread {
+
+        Locale locale;
+        Player player;
+
+        @Setup
+        public void setup(Shared shared) {
+            locale = LOCALES[shared.threads.getAndIncrement() % LOCALES.length];
+            player = MockPlayer.create(locale);
+        }
+    }
+
+    @Benchmark
+    public String material(PerThread state) {
+        return Translate.getMaterial(state.locale, Material.GRASS_BLOCK);
+    }
+
+    @Benchmark
+    public String materialPlayer(PerThread state) {
+        return Translate.getMaterial(state.player, Material.GRASS_BLOCK);
+    }
+
+    @Benchmark
+    public String customValue(PerThread state) {
+        return Translate.getCustomValue("block.minecraft.stone", state.locale);
+    }
+
+    @Benchmark
+    public boolean counter(Shared shared, PerThread state) {
+        shared.counter.increment(state.locale);
+        shared.counter.decrement(state.locale);
+        return shared.counter.isUsed(state.locale);
+    }
+}
@@ -0,0 +1,40 @@
+//  Copyright (C) 2022 Unp1xelt. All rights reserved.
+//
+//  This Source Code Form is subject to the terms of the Mozilla Public
+//  License, v. 2.0. If a copy of the MPL was not distributed with this
+//  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+//
+//  This Source Code Form is "Incompatible With Secondary Licenses", as
+//  defined by the Mozilla Public License, v. 2.0.
+package de.unpixelt.locale;
+
+import org.openjdk.jol.info.GraphLayout;
+
+/**
+ * Footprint reports the retained heap of every loaded {@code Locale}. Values
+ * that are shared with the fallback of a locale are not counted.
+ * <p>
+ * Run it with {@code java -cp benchmarks/target/benchmarks.jar de.unpixelt.locale.Footprint}.
+ */
+public final class Footprint {
+
+    private Footprint() {}
+
+    public static void main(String[] args) {
+        long total = 0;
+
+        System.out.println("Locale   :  Retained heap");
+        for (Locale locale : Locale.values()) {
+            GraphLayout layout = GraphLayout.parseInstance(Translate.getReader(locale));
+
+            Locale fallback = Translate.getLocaleConfig().getFallback(locale);
+            if (fallback != null) {
+                layout = layout.subtract(GraphLayout.parseInstance(Translate.getReader(fallback)));
+            }
+
+            total += layout.totalSize();
+            System.out.printf("%-8s :  %,d bytes%n", locale.name(), layout.totalSize());
+        }
+        System.out.printf("Total    :  %,d bytes%n", total);
+    }
+}
@@ -0,0 +1,45 @@
+//  Copyright (C) 2022 Unp1xelt. All rights reserved.
+//
+//  This Source Code Form is subject to the terms of the Mozilla Public
+//  License, v. 2.0. If a copy of the MPL was not distributed with this
+//  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+//
+//  This Source Code Form is "Incompatible With Secondary Licenses", as
+//  defined by the Mozilla Public License, v. 2.0.
+package de.unpixelt.locale;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long it takes to load a {@code Locale} through the
+ * {@code LocaleReader}, which is the work done on every cache miss.
+ * <br>
+ * The fallback chain of the locale is loaded beforehand, so only the locale
+ * itself is measured.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoadBenchmark {
+
+    /** Without values JMH runs every constant of the enum. */
+    @Param
+    public Locale locale;
+
+    @Setup
+    public void setup() {
+        Locale fallback = Translate.getLocaleConfig().getFallback(locale);
+        if (fallback != null) Translate.getReader(fallback);
+    }
+
+    @Benchmark
+    public LocaleReader load() throws IOException {
+        return new LocaleReader(locale);
+    }
+}
@@ -0,0 +1,140 @@
+//  Copyright (C) 2022 Unp1xelt. All rights reserved.
+//
+//  This Source Code Form is subject to the terms of the Mozilla Public
+//  License, v. 2.0. If a copy of the MPL was not distributed with this
+//  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+//
+//  This Source Code Form is "Incompatible With Secondary Licenses", as
+//  defined by the Mozilla Public License, v. 2.0.
+package de.unpixelt.locale;
+
+import org.bukkit.Material;
+import org.bukkit.block.Biome;
+import org.bukkit.enchantments.Enchantment;
+import org.bukkit.entity.EntityType;
+import org.bukkit.entity.Player;
+import org.bukkit.entity.TropicalFish;
+import org.bukkit.entity.Villager;
+import org.bukkit.potion.PotionEffectType;
+import org.bukkit.potion.PotionType;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the latency of every {@code Translate.get*} method with an already
+ * loaded {@code Locale}. Run it with {@code -prof gc} to see the allocation
+ * rate of each method.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LookupBenchmark {
+
+    @Param({"de_de", "got_de"})
+    public Locale locale;
+
+    private Player player;
+
+    @Setup
+    public void setup() {
+        player = MockPlayer.create(locale);
+        Translate.getReader(locale);
+        // The name lookups return nothing until the names are indexed.
+        Translate.getKeyByNameAsync(locale, "").join();
+    }
+
+    @Benchmark
+    public Locale locale() {
+        return Translate.getLocale(player);
+    }
+
+    @Benchmark
+    public String customValue() {
+        return Translate.getCustomValue("block.minecraft.stone", locale);
+    }
+
+    @Benchmark
+    public String customValuePlayer() {
+        return Translate.getCustomValue("block.minecraft.stone", player);
+    }
+
+    @Benchmark
+    public String format() {
+        return Translate.format("multiplayer.player.joined", locale, "Steve");
+    }
+
+    @Benchmark
+    public String stringFormat() {
+        return String.format(Translate.getCustomValue("multiplayer.player.joined", locale), "Steve");
+    }
+
+    @Benchmark
+    public String keyByName() {
+        return Translate.getKeyByName(locale, "Stein");
+    }
+
+    @Benchmark
+    public List<String> completeNames() {
+        return Translate.completeNames(locale, "dia", 10);
+    }
+
+    @Benchmark
+    public List<String> searchNames() {
+        return Translate.searchNames(locale, "diamnd swrod", 10);
+    }
+
+    @Benchmark
+    public List<String> allKey() {
+        return Translate.getAllKey(locale);
+    }
+
+    @Benchmark
+    public String biome() {
+        return Translate.getBiome(locale, Biome.PLAINS);
+    }
+
+    @Benchmark
+    public String material() {
+        return Translate.getMaterial(locale, Material.GRASS_BLOCK);
+    }
+
+    @Benchmark
+    public String materialPlayer() {
+        return Translate.getMaterial(player, Material.GRASS_BLOCK);
+    }
+
+    @Benchmark
+    public String potion() {
+        return Translate.getPotion(locale, PotionType.INSTANT_HEAL, Translate.PotionSort.SPLASH_POTION);
+    }
+
+    @Benchmark
+    public String effect() {
+        return Translate.getEffect(locale, PotionEffectType.SLOW);
+    }
+
+    @Benchmark
+    public String enchantment() {
+        return Translate.getEnchantment(locale, Enchantment.DURABILITY);
+    }
+
+    @Benchmark
+    public String entity() {
+        return Translate.getEntity(locale, EntityType.ZOMBIE);
+    }
+
+    @Benchmark
+    public String villager() {
+        return Translate.getVillager(locale, Villager.Profession.ARMORER);
+    }
+
+    @Benchmark
+    public String tropicalFish() {
+        return Translate.getTropicalFish(locale, TropicalFish.Pattern.KOB);
+    }
+}
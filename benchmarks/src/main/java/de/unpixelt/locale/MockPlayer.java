@@ -0,0 +1,56 @@
+//  Copyright (C) 2022 Unp1xelt. All rights reserved.
+//
+//  This Source Code Form is subject to the terms of the Mozilla Public
+//  License, v. 2.0. If a copy of the MPL was not distributed with this
+//  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+//
+//  This Source Code Form is "Incompatible With Secondary Licenses", as
+//  defined by the Mozilla Public License, v. 2.0.
+package de.unpixelt.locale;
+
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.reflect.Proxy;
+import java.util.UUID;
+
+/**
+ * MockPlayer creates {@code Player} objects without a server. Only the methods
+ * used by the API are answered, every other method throws an
+ * {@code UnsupportedOperationException}.
+ */
+final class MockPlayer {
+
+    private MockPlayer() {}
+
+    /**
+     * Creates a player that uses the locale.
+     *
+     * @param locale The locale of the player's client
+     * @return A new {@link Player}
+     */
+    @NotNull
+    static Player create(@NotNull Locale locale) {
+        UUID uuid = UUID.randomUUID();
+
+        return (Player) Proxy.newProxyInstance(Player.class.getClassLoader(), new Class<?>[]{Player.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getLocale":
+                            return locale.name();
+                        case "getUniqueId":
+                            return uuid;
+                        case "getName":
+                            return "Player-" + locale.name();
+                        case "hashCode":
+                            return uuid.hashCode();
+                        case "equals":
+                            return proxy == args[0];
+                        case "toString":
+                            return "MockPlayer{" + locale.name() + "}";
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+}
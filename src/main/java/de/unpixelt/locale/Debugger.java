@@ -9,6 +9,8 @@
 
 package de.unpixelt.locale;
 
+import java.util.Map;
+
 /**
  * Debugger sends messages to the console when a {@code Locale} is loaded into
  * or cleared from the cache, by default this is disabled.
@@ -22,14 +24,29 @@ public class Debugger {
         Translate.getPlugin().getLogger().info(msg);
     }
 
-    void loadToCache(Locale locale) {
-        if (showCaching) sendMessage("'" + locale.name() + "' loaded into cache");
+    void loadToCache(Locale locale, long nanos) {
+        if (showCaching) sendMessage(String.format("'%s' loaded into cache in %.2f ms", locale.name(), nanos / 1e6));
     }
 
     void unloadFromCache(Locale locale) {
         if (showCaching) sendMessage("'" + locale.name() + "' cleared from cache");
     }
 
+    void shedFromCache(int count) {
+        if (showCaching) sendMessage(count + " unused locales cleared from cache, the heap is running full");
+    }
+
+    void warmedUp(Map<Locale, Long> times) {
+        if (!showCaching) return;
+
+        StringBuilder builder = new StringBuilder("Warm-up times:");
+        times.entrySet().stream()
+                .sorted(Map.Entry.<Locale, Long>comparingByValue().reversed())
+                .forEach(entry -> builder.append(String.format(" %s %.2f ms,", entry.getKey().name(), entry.getValue() / 1e6)));
+        builder.setLength(builder.length() - 1);
+        sendMessage(builder.toString());
+    }
+
     public boolean isShowCaching() {
         return showCaching;
     }
@@ -0,0 +1,152 @@
+//  Copyright (C) 2022 Unp1xelt. All rights reserved.
+//
+//  This Source Code Form is subject to the terms of the Mozilla Public
+//  License, v. 2.0. If a copy of the MPL was not distributed with this
+//  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+//
+//  This Source Code Form is "Incompatible With Secondary Licenses", as
+//  defined by the Mozilla Public License, v. 2.0.
+
+package de.unpixelt.locale;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * FormatTemplate is a translation compiled into literal segments and argument
+ * slots, so it is parsed once instead of on every {@link String#format}.
+ * <br>
+ * The placeholders of the language files are supported: {@code %s},
+ * {@code %d}, their indexed form like {@code %1$s} and {@code %%}. Like in
+ * the client, a placeholder without argument is kept as it is and any other
+ * {@code %} is a literal.
+ *
+ * @see Translate#format(String, Locale, Object...)
+ */
+final class FormatTemplate {
+
+    private static final int MAX_BUILDER_CAPACITY = 4096;
+    private static final ThreadLocal<StringBuilder> BUILDER = ThreadLocal.withInitial(() -> new StringBuilder(128));
+
+    /** Literal segments, {@code literals[i]} precedes {@code slots[i]}. */
+    private final String[] literals;
+    /** Argument index of every slot. */
+    private final int[] slots;
+    /** Placeholder text of every slot, used if its argument is missing. */
+    private final String[] placeholders;
+
+    private FormatTemplate(String[] literals, int[] slots, String[] placeholders) {
+        this.literals = literals;
+        this.slots = slots;
+        this.placeholders = placeholders;
+    }
+
+    /**
+     * Compiles the translation into a template.
+     *
+     * @param pattern The translation
+     * @return The template of the translation
+     */
+    @NotNull
+    static FormatTemplate compile(@NotNull String pattern) {
+        List<String> literals = new ArrayList<>();
+        List<Integer> slots = new ArrayList<>();
+        List<String> placeholders = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        int next = 0;
+
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (c != '%' || i + 1 == pattern.length()) {
+                literal.append(c);
+                continue;
+            }
+
+            if (pattern.charAt(i + 1) == '%') {
+                literal.append('%');
+                i++;
+                continue;
+            }
+
+            // %n$s, the index is one based.
+            int end = i + 1;
+            while (end < pattern.length() && Character.isDigit(pattern.charAt(end))) end++;
+            boolean indexed = end > i + 1 && end < i + 4 && end + 1 < pattern.length() && pattern.charAt(end) == '$';
+            int conversion = indexed ? end + 1 : i + 1;
+
+            // %0$s has no argument, it is a literal like in the client.
+            if (!isConversion(pattern.charAt(conversion)) || (end > i + 1 && !indexed)
+                    || (indexed && Integer.parseInt(pattern.substring(i + 1, end)) == 0)) {
+                literal.append(c);
+                continue;
+            }
+
+            literals.add(literal.toString());
+            literal.setLength(0);
+            slots.add(indexed ? Integer.parseInt(pattern.substring(i + 1, end)) - 1 : next++);
+            placeholders.add(pattern.substring(i, conversion + 1));
+            i = conversion;
+        }
+        literals.add(literal.toString());
+
+        int[] slotArray = new int[slots.size()];
+        for (int i = 0; i < slotArray.length; i++) slotArray[i] = slots.get(i);
+        return new FormatTemplate(literals.toArray(new String[0]), slotArray, placeholders.toArray(new String[0]));
+    }
+
+    private static boolean isConversion(char c) {
+        return c == 's' || c == 'd';
+    }
+
+    /**
+     * Fills the template's slots with the arguments.
+     *
+     * @param args The arguments
+     * @return The formatted translation
+     */
+    @NotNull
+    String format(@NotNull Object... args) {
+        if (slots.length == 0) return literals[0];
+
+        // The builder is taken while it is in use, a nested call, in example
+        // from an argument's toString(), gets a builder of its own.
+        StringBuilder builder = BUILDER.get();
+        if (builder == null) builder = new StringBuilder(128);
+        BUILDER.set(null);
+
+        try {
+            builder.setLength(0);
+            formatTo(builder, args);
+            return builder.toString();
+        } finally {
+            // Don't keep a huge builder per thread after an unusual argument.
+            if (builder.capacity() > MAX_BUILDER_CAPACITY) {
+                BUILDER.remove();
+            } else {
+                BUILDER.set(builder);
+            }
+        }
+    }
+
+    /**
+     * Appends the template with its slots filled by the arguments.
+     *
+     * @param builder The builder to append to
+     * @param args The arguments
+     */
+    void formatTo(@NotNull StringBuilder builder, @NotNull Object... args) {
+        for (int i = 0; i < slots.length; i++) {
+            builder.append(literals[i]);
+
+            int slot = slots[i];
+            if (slot >= 0 && slot < args.length) {
+                builder.append(args[slot]);
+            } else {
+                builder.append(placeholders[i]);
+            }
+        }
+        builder.append(literals[slots.length]);
+    }
+}
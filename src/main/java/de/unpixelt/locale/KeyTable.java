@@ -0,0 +1,255 @@
+//  Copyright (C) 2022 Unp1xelt. All rights reserved.
+//
+//  This Source Code Form is subject to the terms of the Mozilla Public
+//  License, v. 2.0. If a copy of the MPL was not distributed with this
+//  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+//
+//  This Source Code Form is "Incompatible With Secondary Licenses", as
+//  defined by the Mozilla Public License, v. 2.0.
+
+package de.unpixelt.locale;
+
+import org.bukkit.Material;
+import org.bukkit.block.Biome;
+import org.bukkit.enchantments.Enchantment;
+import org.bukkit.entity.EntityType;
+import org.bukkit.entity.TropicalFish;
+import org.bukkit.entity.Villager;
+import org.bukkit.potion.PotionEffectType;
+import org.bukkit.potion.PotionType;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * KeyTable holds the keys of all constants of a type, like all
+ * {@link Material Materials}, indexed by the ordinal of the constant. Types
+ * that aren't enums, like {@link Enchantment}, are indexed by their position
+ * at the time the table is created. The keys are computed once, every
+ * {@link LocaleReader} resolves a table into an array of translations the
+ * first time it is used.
+ *
+ * @see LocaleReader#translate(KeyTable, int)
+ */
+final class KeyTable {
+
+    private static final AtomicInteger COUNT = new AtomicInteger();
+
+    static final KeyTable BIOME = ofEnum(Biome.class, biome ->
+            biome == Biome.CUSTOM ? null : "biome.minecraft." + biome.name().toLowerCase());
+    static final KeyTable MATERIAL = ofEnum(Material.class, KeyTable::materialKey);
+    static final KeyTable ENTITY = ofEnum(EntityType.class, type -> type.getName() == null
+            ? "entity.notFound" : "entity.minecraft." + type.getName().toLowerCase());
+    static final KeyTable VILLAGER = ofEnum(Villager.Profession.class, type ->
+            "entity.minecraft.villager." + type.name().toLowerCase());
+    static final KeyTable TROPICAL_FISH = ofEnum(TropicalFish.Pattern.class, type ->
+            "entity.minecraft.tropical_fish.type." + type.name().toLowerCase());
+
+    private static final Map<Enchantment, Integer> ENCHANTMENTS = new HashMap<>();
+    static final KeyTable ENCHANTMENT = ofEnchantments();
+
+    private static final int POTION_TYPES = PotionType.values().length;
+    static final KeyTable POTION = ofPotions();
+
+    private static final Map<PotionEffectType, Integer> EFFECTS = new HashMap<>();
+    static final KeyTable EFFECT = ofEffects();
+
+    final int ordinal;
+    private final String[] keys;
+    private final Object[] constants;
+    private final Map<String, Integer> indices = new HashMap<>();
+
+    private KeyTable(String[] keys, @Nullable Object[] constants) {
+        this.ordinal = COUNT.getAndIncrement();
+        this.keys = keys;
+        this.constants = constants;
+
+        if (constants == null) return;
+        // The first constant with a key wins, in example TORCH before WALL_TORCH.
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != null && constants[i] != null) indices.putIfAbsent(keys[i], i);
+        }
+    }
+
+    /**
+     * Returns the amount of key tables.
+     *
+     * @return The amount of key tables
+     */
+    static int count() {
+        return COUNT.get();
+    }
+
+    /**
+     * Returns the index of the enchantment in {@link #ENCHANTMENT}.
+     *
+     * @param ench The enchantment
+     * @return The index of the enchantment or {@code -1} if it was registered
+     *         after the table has been created
+     */
+    static int indexOf(@NotNull Enchantment ench) {
+        Integer index = ENCHANTMENTS.get(ench);
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * Returns the index of the potion in {@link #POTION}.
+     *
+     * @param type The type of the potion
+     * @param sort The sort of the potion
+     * @return The index of the potion
+     */
+    static int indexOf(@NotNull PotionType type, @NotNull Translate.PotionSort sort) {
+        return sort.ordinal() * POTION_TYPES + type.ordinal();
+    }
+
+    /**
+     * Returns the index of the effect in {@link #EFFECT}.
+     *
+     * @param type The type of the effect, {@code null} for no effect
+     * @return The index of the effect or {@code -1} if it was registered after
+     *         the table has been created
+     */
+    static int indexOf(@Nullable PotionEffectType type) {
+        if (type == null) return 0;
+
+        Integer index = EFFECTS.get(type);
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * Returns the key of the effect.
+     *
+     * @param type The type of the effect
+     * @return The key of the effect
+     */
+    @NotNull
+    static String effectKey(@NotNull PotionEffectType type) {
+        return "effect.minecraft." + type.getKey().getKey();
+    }
+
+    /**
+     * Returns the key of the constant at the index.
+     *
+     * @param index The index of the constant
+     * @return The key or {@code null} if the constant has no key
+     */
+    @Nullable
+    String key(int index) {
+        return keys[index];
+    }
+
+    /**
+     * Returns the constant whose key it is, in example the {@link Material}
+     * of {@code block.minecraft.stone}.
+     *
+     * @param key The key
+     * @return The constant or {@code null} if no constant of the table has
+     *         the key
+     */
+    @Nullable
+    Object constantOf(@NotNull String key) {
+        Integer index = indices.get(key);
+        return index == null ? null : constants[index];
+    }
+
+    /**
+     * Resolves the translation of all keys with the reader.
+     *
+     * @param reader The reader of the locale
+     * @return The translations indexed like the keys
+     */
+    @NotNull
+    String[] resolve(@NotNull LocaleReader reader) {
+        String[] values = new String[keys.length];
+
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != null) values[i] = reader.getValue(keys[i]);
+        }
+        return values;
+    }
+
+    @Nullable
+    private static String materialKey(Material mat) {
+        if (mat.isLegacy()) return null;
+
+        String name = mat.getKey().getKey();
+        if (name.contains("wall_")) name = name.replace("wall_", "");
+
+        return (mat.isBlock() ? "block.minecraft." : "item.minecraft.") + name;
+    }
+
+    private static String potionName(PotionType type) {
+        // Names of the potion types that differ from the vanilla keys.
+        switch (type) {
+            case REGEN:
+                return "regeneration";
+            case INSTANT_HEAL:
+                return "healing";
+            case INSTANT_DAMAGE:
+                return "harming";
+            case JUMP:
+                return "leaping";
+            case UNCRAFTABLE:
+                return "empty";
+            case SPEED:
+                return "swiftness";
+            default:
+                return type.name().toLowerCase();
+        }
+    }
+
+    private static <E extends Enum<E>> KeyTable ofEnum(Class<E> type, Function<E, String> key) {
+        E[] constants = type.getEnumConstants();
+        String[] keys = new String[constants.length];
+
+        for (E constant : constants) {
+            keys[constant.ordinal()] = key.apply(constant);
+        }
+        return new KeyTable(keys, constants);
+    }
+
+    private static KeyTable ofEnchantments() {
+        Enchantment[] enchantments = Enchantment.values();
+        String[] keys = new String[enchantments.length];
+
+        for (int i = 0; i < enchantments.length; i++) {
+            if (enchantments[i] == null) continue;
+
+            ENCHANTMENTS.put(enchantments[i], i);
+            keys[i] = "enchantment.minecraft." + enchantments[i].getKey().getKey();
+        }
+        return new KeyTable(keys, enchantments);
+    }
+
+    private static KeyTable ofPotions() {
+        Translate.PotionSort[] sorts = Translate.PotionSort.values();
+        String[] keys = new String[sorts.length * POTION_TYPES];
+
+        for (Translate.PotionSort sort : sorts) {
+            for (PotionType type : PotionType.values()) {
+                keys[indexOf(type, sort)] = "item.minecraft." + sort + ".effect." + potionName(type);
+            }
+        }
+        return new KeyTable(keys, null);
+    }
+
+    private static KeyTable ofEffects() {
+        PotionEffectType[] effects = PotionEffectType.values();
+        String[] keys = new String[effects.length + 1];
+
+        keys[0] = "effect.none";
+        for (int i = 0; i < effects.length; i++) {
+            // Without a server the effects are not registered.
+            if (effects[i] == null) continue;
+
+            EFFECTS.put(effects[i], i + 1);
+            keys[i + 1] = effectKey(effects[i]);
+        }
+        return new KeyTable(keys, null);
+    }
+}
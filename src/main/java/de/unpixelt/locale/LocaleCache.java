@@ -0,0 +1,336 @@
+//  Copyright (C) 2022 Unp1xelt. All rights reserved.
+//
+//  This Source Code Form is subject to the terms of the Mozilla Public
+//  License, v. 2.0. If a copy of the MPL was not distributed with this
+//  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+//
+//  This Source Code Form is "Incompatible With Secondary Licenses", as
+//  defined by the Mozilla Public License, v. 2.0.
+
+package de.unpixelt.locale;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.LoadingCache;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Predicate;
+
+/**
+ * LocaleCache holds the loaded {@code LocaleReader}'s. A {@code Locale} can be
+ * loaded blocking, like before, or asynchronously on the loader threads.
+ * <p>
+ * Every {@code Locale} is loaded only once at a time, concurrent requests for
+ * the same {@code Locale} share one load regardless if they are blocking or
+ * asynchronous.
+ * <p>
+ * Unpinned locales share a memory budget, measured by
+ * {@link LocaleReader#getWeight()}, and expire if they aren't used. Pinned
+ * locales are held outside of the budget until the cache is discarded.
+ *
+ * @see LocaleCacheLoader
+ * @see LocaleConfig
+ */
+final class LocaleCache {
+
+    private final LoadingCache<Locale, LocaleReader> cache;
+    private final AtomicReferenceArray<LocaleReader> pinned = new AtomicReferenceArray<>(Locale.values().length);
+    private final LocaleConfig config;
+    private final ConcurrentMap<Locale, CompletableFuture<LocaleReader>> loading = new ConcurrentHashMap<>();
+    private final ExecutorService executor;
+
+    /**
+     * Constructs an empty cache.
+     *
+     * @param config The configuration of the loader threads
+     */
+    LocaleCache(@NotNull LocaleConfig config) {
+        this.config = config;
+
+        CacheBuilder<Locale, LocaleReader> builder = CacheBuilder.newBuilder()
+                .weigher((Locale locale, LocaleReader reader) -> config.isPinned(locale) ? 0 : reader.getWeight());
+        if (config.getMaxMemory() > 0) builder.maximumWeight(config.getMaxMemory());
+        if (config.getExpireAfterAccess() > 0) builder.expireAfterAccess(config.getExpireAfterAccess(), TimeUnit.SECONDS);
+        this.cache = builder.build(new LocaleCacheLoader());
+        this.executor = Executors.newFixedThreadPool(config.getLoaderThreads(), new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(@NotNull Runnable runnable) {
+                Thread thread = new Thread(runnable, "Locale-API Loader #" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Returns the reader of the locale, if it isn't loaded yet the caller is
+     * blocked until it is.
+     *
+     * @param locale The locale
+     * @return {@link LocaleReader} of the locale
+     */
+    @NotNull
+    LocaleReader get(@NotNull Locale locale) {
+        LocaleReader reader = pinned.get(locale.ordinal());
+        if (reader != null) return reader;
+
+        reader = cache.getUnchecked(locale);
+        if (config.isPinned(locale)) pinned.compareAndSet(locale.ordinal(), null, reader);
+        return reader;
+    }
+
+    /**
+     * Returns the reader of the locale if it is loaded.
+     *
+     * @param locale The locale
+     * @return {@link LocaleReader} of the locale or {@code null} if it isn't
+     *         loaded
+     */
+    @Nullable
+    LocaleReader getIfPresent(@NotNull Locale locale) {
+        LocaleReader reader = pinned.get(locale.ordinal());
+        return reader != null ? reader : cache.getIfPresent(locale);
+    }
+
+    /**
+     * Returns the reader of the locale, if it isn't loaded yet it is loaded on
+     * a loader thread.
+     *
+     * @param locale The locale
+     * @return A future completed with the {@link LocaleReader} of the locale
+     */
+    @NotNull
+    CompletableFuture<LocaleReader> getAsync(@NotNull Locale locale) {
+        LocaleReader reader = getIfPresent(locale);
+        if (reader != null) return CompletableFuture.completedFuture(reader);
+
+        CompletableFuture<LocaleReader> future = new CompletableFuture<>();
+        CompletableFuture<LocaleReader> inFlight = loading.putIfAbsent(locale, future);
+        if (inFlight != null) return inFlight;
+
+        try {
+            executor.execute(() -> {
+                try {
+                    future.complete(get(locale));
+                } catch (Throwable t) {
+                    future.completeExceptionally(t);
+                } finally {
+                    loading.remove(locale, future);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // The cache was shut down, later requests must not wait for this load.
+            loading.remove(locale, future);
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * Runs the task on a loader thread.
+     *
+     * @param task The task
+     * @return A future completed once the task ran
+     */
+    @NotNull
+    CompletableFuture<Void> runAsync(@NotNull Runnable task) {
+        return CompletableFuture.runAsync(task, executor);
+    }
+
+    /**
+     * Returns the index of the locale's translated names, the locale and its
+     * index are loaded on a loader thread if necessary.
+     *
+     * @param locale The locale
+     * @return A future completed with the {@link NameIndex} of the locale
+     */
+    @NotNull
+    CompletableFuture<NameIndex> getNames(@NotNull Locale locale) {
+        return getAsync(locale).thenCompose(reader -> reader.getNames(executor));
+    }
+
+    /**
+     * Returns the index of the locale's translated names without blocking. If
+     * the locale or its index isn't loaded yet it is loaded on a loader
+     * thread and {@code null} is returned meanwhile.
+     *
+     * @param locale The locale
+     * @return The {@link NameIndex} of the locale or {@code null}
+     */
+    @Nullable
+    NameIndex getNamesNow(@NotNull Locale locale) {
+        LocaleReader reader = getIfPresent(locale);
+        if (reader == null) {
+            getNames(locale);
+            return null;
+        }
+
+        CompletableFuture<NameIndex> names = reader.getNames(executor);
+        return names.isDone() && !names.isCompletedExceptionally() ? names.join() : null;
+    }
+
+    /**
+     * Returns the reader of the locale without blocking. If the locale isn't
+     * loaded yet it is loaded asynchronously and the reader of
+     * {@link Locale#en_us} is returned meanwhile. {@link Locale#en_us} is
+     * loaded by {@link #loadFallback()} when the plugin is enabled, only
+     * without a server the first call blocks until it is loaded.
+     *
+     * @param locale The locale
+     * @return {@link LocaleReader} of the locale or of {@link Locale#en_us}
+     */
+    @NotNull
+    LocaleReader getNow(@NotNull Locale locale) {
+        LocaleReader reader = getIfPresent(locale);
+        if (reader != null) return reader;
+
+        getAsync(locale);
+        return get(Locale.en_us);
+    }
+
+    /**
+     * Loads and pins {@link Locale#en_us}, the reader that is used while other
+     * locales are loading. The caller is blocked until it is loaded.
+     */
+    void loadFallback() {
+        pin(Locale.en_us, false);
+    }
+
+    /**
+     * Loads the locales in parallel on a {@link ForkJoinPool} with a thread
+     * per core and pins them, so they are never cleared. All sections are
+     * loaded, not only the configured namespaces. {@link Locale#en_us} is
+     * loaded first, it is the fallback of every other locale.
+     *
+     * @param locales The locales to load
+     * @return A future completed with the load time of every locale in
+     *         nanoseconds, locales that were already loaded take no time
+     */
+    @NotNull
+    CompletableFuture<Map<Locale, Long>> warmUp(@NotNull Collection<Locale> locales) {
+        ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors(), forkJoinPool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+            thread.setName("Locale-API Warm-up #" + (thread.getPoolIndex() + 1));
+            return thread;
+        }, null, false);
+
+        CompletableFuture<Map<Locale, Long>> future = CompletableFuture.supplyAsync(() -> {
+            Map<Locale, Long> times = new ConcurrentHashMap<>();
+            if (locales.contains(Locale.en_us)) times.put(Locale.en_us, pin(Locale.en_us, true));
+
+            // A parallel stream started on a pool's thread runs on that pool.
+            locales.parallelStream()
+                    .filter(locale -> locale != Locale.en_us)
+                    .forEach(locale -> times.put(locale, pin(locale, true)));
+            return times;
+        }, pool);
+        future.whenComplete((times, t) -> pool.shutdown());
+        return future;
+    }
+
+    /**
+     * Loads the locale and holds it outside of the memory budget.
+     *
+     * @param all If the sections outside of the configured namespaces are
+     *            loaded as well
+     * @return The load time in nanoseconds
+     */
+    private long pin(Locale locale, boolean all) {
+        long start = System.nanoTime();
+        LocaleReader reader = get(locale);
+        if (all) reader.loadAll();
+        long time = System.nanoTime() - start;
+
+        pinned.compareAndSet(locale.ordinal(), null, reader);
+        // The pinned reader doesn't count against the budget anymore.
+        cache.invalidate(locale);
+        return time;
+    }
+
+    /**
+     * Clears the locale from the cache, pinned locales are kept.
+     *
+     * @param locale The locale
+     */
+    void invalidate(@NotNull Locale locale) {
+        if (!config.isPinned(locale)) cache.invalidate(locale);
+    }
+
+    /**
+     * Clears every unpinned locale that isn't in use from the cache.
+     *
+     * @param inUse Tests if a locale is in use
+     * @return The amount of locales cleared
+     */
+    int shed(@NotNull Predicate<Locale> inUse) {
+        int count = 0;
+        for (Locale locale : cache.asMap().keySet()) {
+            if (config.isPinned(locale) || inUse.test(locale)) continue;
+
+            cache.invalidate(locale);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Returns how many bytes the loaded locales saved by sharing the
+     * translations that are equal to the translations of their fallbacks.
+     * <p>
+     * The savings are counted when a locale merges its sections and are not
+     * reduced afterwards. A cleared locale isn't counted anymore, but a locale
+     * that shared the translations of a cleared fallback still counts them,
+     * although it is the only one holding them now.
+     *
+     * @return The estimated amount of bytes saved when the locales were loaded
+     */
+    long getFallbackBytes() {
+        long bytes = 0;
+        for (LocaleReader reader : readers()) {
+            bytes += reader.getFallbackBytes();
+        }
+        return bytes;
+    }
+
+    /**
+     * Returns how many bytes the loaded locales saved because equal
+     * translations are interned. Like {@link #getFallbackBytes()}, a locale
+     * still counts the translations it found interned by a locale that is
+     * cleared by now.
+     *
+     * @return The estimated amount of bytes saved when the locales were loaded
+     * @see LocaleConfig#isInternValues()
+     */
+    long getInternedBytes() {
+        long bytes = 0;
+        for (LocaleReader reader : readers()) {
+            bytes += reader.getInternedBytes();
+        }
+        return bytes;
+    }
+
+    /**
+     * Returns the readers of every loaded locale, pinned or not.
+     */
+    private Set<LocaleReader> readers() {
+        Set<LocaleReader> readers = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int ordinal = 0; ordinal < pinned.length(); ordinal++) {
+            if (pinned.get(ordinal) != null) readers.add(pinned.get(ordinal));
+        }
+        readers.addAll(cache.asMap().values());
+        return readers;
+    }
+
+    /**
+     * Stops the loader threads, loads in progress are finished.
+     */
+    void shutdown() {
+        executor.shutdown();
+    }
+}
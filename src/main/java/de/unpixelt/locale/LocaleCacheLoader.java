@@ -32,7 +32,10 @@ class LocaleCacheLoader extends CacheLoader<Locale, LocaleReader> {
      */
     @Override
     public LocaleReader load(Locale key) throws Exception {
-        Translate.getDebugger().loadToCache(key);
-        return new LocaleReader(key);
+        long start = System.nanoTime();
+        LocaleReader reader = new LocaleReader(key);
+
+        Translate.getDebugger().loadToCache(key, System.nanoTime() - start);
+        return reader;
     }
 }
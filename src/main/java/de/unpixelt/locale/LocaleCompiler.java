@@ -0,0 +1,149 @@
+//  Copyright (C) 2022 Unp1xelt. All rights reserved.
+//
+//  This Source Code Form is subject to the terms of the Mozilla Public
+//  License, v. 2.0. If a copy of the MPL was not distributed with this
+//  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+//
+//  This Source Code Form is "Incompatible With Secondary Licenses", as
+//  defined by the Mozilla Public License, v. 2.0.
+
+package de.unpixelt.locale;
+
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.logging.Logger;
+
+/**
+ * LocaleCompiler compiles every language file of a directory and the dictionary
+ * of their keys into the binary format described by {@link LocaleFormat}. The
+ * compiled files are written next to the JSON files.
+ *
+ * <p> A locale is compiled as a delta to its fallback in the default
+ * {@code config.yml}, if less than half of their values differ. A delta to
+ * the fallback only needs its own values once the fallback is merged in.
+ *
+ * <p> It is executed by the build in the {@code process-classes} phase and is
+ * not part of the API, neither the compiler nor the JSON files are packaged
+ * into the jar.
+ *
+ * @see LocaleFormat
+ */
+public final class LocaleCompiler {
+
+    /** The default configuration, next to the {@code lang} directory. */
+    static final String CONFIG = "config.yml";
+
+    private LocaleCompiler() {}
+
+    /**
+     * Compiles all language files.
+     *
+     * @param args The directory containing the language files, the default
+     *             {@code config.yml} is read from its parent
+     * @throws IOException if a language file can't be read or written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            throw new IllegalArgumentException("Usage: LocaleCompiler <directory>");
+        }
+
+        File directory = new File(args[0]);
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(LocaleFormat.JSON));
+        if (files == null) {
+            throw new FileNotFoundException("Directory not found! " + directory);
+        }
+        Arrays.sort(files);
+
+        // The dictionary contains the keys of all language files.
+        Set<String> keys = new TreeSet<>();
+        for (File file : files) {
+            keys.addAll(readJson(file).keySet());
+        }
+
+        List<String> dictionary = new ArrayList<>(keys);
+        Map<String, Integer> ids = new HashMap<>();
+        for (int id = 0; id < dictionary.size(); id++) {
+            ids.put(dictionary.get(id), id);
+        }
+        try (OutputStream out = new FileOutputStream(new File(directory, LocaleKeys.FILE + LocaleFormat.BINARY))) {
+            LocaleFormat.writeKeys(out, dictionary);
+        }
+
+        // The bases follow the default fallbacks, so a delta is shared with
+        // its fallback unless a server configures another one.
+        File configFile = new File(directory.getParentFile(), CONFIG);
+        LocaleConfig config = configFile.isFile()
+                ? new LocaleConfig(YamlConfiguration.loadConfiguration(configFile), Logger.getLogger(LocaleCompiler.class.getName()))
+                : new LocaleConfig();
+
+        int hash = Arrays.hashCode(dictionary.toArray());
+        long jsonBytes = 0;
+        long binaryBytes = 0;
+        int deltas = 0;
+        for (File file : files) {
+            String name = file.getName();
+            name = name.substring(0, name.length() - LocaleFormat.JSON.length());
+            File target = new File(directory, name + LocaleFormat.BINARY);
+
+            String[] values = values(file, ids, dictionary.size());
+            Locale locale = locale(name);
+            Locale fallback = locale == null ? null : config.getFallback(locale);
+            String base = fallback == null ? null : fallback.name();
+            File baseFile = new File(directory, base + LocaleFormat.JSON);
+
+            boolean delta = false;
+            if (base != null && baseFile.isFile()) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                int changes = LocaleFormat.writeDelta(out, values, base, values(baseFile, ids, dictionary.size()), hash);
+
+                if (changes * 2 < dictionary.size()) {
+                    Files.write(target.toPath(), out.toByteArray());
+                    delta = true;
+                    deltas++;
+                }
+            }
+            if (!delta) {
+                try (OutputStream out = new FileOutputStream(target)) {
+                    LocaleFormat.write(out, values, hash);
+                }
+            }
+
+            jsonBytes += file.length();
+            binaryBytes += target.length();
+        }
+
+        System.out.println("Compiled " + files.length + " language files from " + jsonBytes / 1024
+                + " KB to " + binaryBytes / 1024 + " KB with " + dictionary.size() + " keys, "
+                + deltas + " of them as deltas");
+    }
+
+    /**
+     * Returns the locale of a language file or {@code null} if the file isn't
+     * one of a {@link Locale}, it is compiled without a base then.
+     */
+    private static Locale locale(String name) {
+        try {
+            return Locale.valueOf(name);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static String[] values(File file, Map<String, Integer> ids, int size) throws IOException {
+        String[] values = new String[size];
+        for (Map.Entry<String, String> entry : readJson(file).entrySet()) {
+            values[ids.get(entry.getKey())] = entry.getValue();
+        }
+        return values;
+    }
+
+    private static Map<String, String> readJson(File file) throws IOException {
+        try (Reader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            return LocaleFormat.readJson(reader);
+        }
+    }
+}
@@ -0,0 +1,338 @@
+//  Copyright (C) 2022 Unp1xelt. All rights reserved.
+//
+//  This Source Code Form is subject to the terms of the Mozilla Public
+//  License, v. 2.0. If a copy of the MPL was not distributed with this
+//  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+//
+//  This Source Code Form is "Incompatible With Secondary Licenses", as
+//  defined by the Mozilla Public License, v. 2.0.
+
+package de.unpixelt.locale;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * LocaleConfig holds the settings of the {@code config.yml}. Without a
+ * configuration the defaults are used, in example when the API is used outside
+ * of a server.
+ *
+ * @see Translate#getLocaleConfig()
+ */
+final class LocaleConfig {
+
+    private final EnumMap<Locale, Locale> fallbacks = new EnumMap<>(Locale.class);
+    private int loaderThreads = 2;
+    private boolean nonBlocking = false;
+    private boolean rememberLocales = true;
+    private Set<String> namespaces = new HashSet<>(Arrays.asList("biome", "block", "effect", "enchantment", "entity", "item"));
+    private long maxMemory = 64L << 20;
+    private long expireAfterAccess = TimeUnit.MINUTES.toSeconds(2);
+    private final Set<Locale> pinned = EnumSet.of(Locale.en_us);
+    private double memoryThreshold = 0.85;
+    private long unloadDelay = 30;
+    private boolean offHeap = false;
+    private int offHeapCacheSize = 256;
+    private String sharedStore = "";
+    private boolean internValues = true;
+    private Locale defaultLocale = Locale.en_us;
+    private boolean warmUp = false;
+    private final Set<Locale> warmUpLocales = EnumSet.noneOf(Locale.class);
+
+    /**
+     * Constructs the default configuration, every {@code Locale} falls back to
+     * {@link Locale#en_us}.
+     */
+    LocaleConfig() {}
+
+    /**
+     * Constructs the configuration from the {@code config.yml}. Invalid
+     * settings are logged and replaced by their default.
+     *
+     * @param config The root section of the {@code config.yml}
+     * @param logger The logger to report invalid settings to
+     */
+    LocaleConfig(@NotNull ConfigurationSection config, @NotNull Logger logger) {
+        ConfigurationSection section = config.getConfigurationSection("fallback");
+        if (section != null) {
+            for (String name : section.getKeys(false)) {
+                Locale locale = parse(name, logger);
+                Locale fallback = parse(section.getString(name), logger);
+
+                if (locale == null || fallback == null || locale == Locale.en_us) continue;
+                fallbacks.put(locale, fallback);
+
+                if (hasCycle(locale)) {
+                    logger.warning("Fallback of '" + name + "' creates a cycle, using 'en_us' instead");
+                    fallbacks.remove(locale);
+                }
+            }
+        }
+
+        Locale parsed = parse(config.getString("default-locale", defaultLocale.name()), logger);
+        if (parsed != null) defaultLocale = parsed;
+
+        loaderThreads = config.getInt("loading.threads", loaderThreads);
+        if (loaderThreads < 1) {
+            logger.warning("'loading.threads' has to be at least 1, using 1 instead");
+            loaderThreads = 1;
+        }
+        nonBlocking = config.getBoolean("loading.non-blocking", nonBlocking);
+        rememberLocales = config.getBoolean("loading.remember-locales", rememberLocales);
+        if (config.isList("loading.namespaces")) {
+            namespaces = new HashSet<>(config.getStringList("loading.namespaces"));
+        }
+
+        maxMemory = Math.max(0, config.getLong("cache.max-memory", maxMemory >> 20)) << 20;
+        expireAfterAccess = Math.max(0, config.getLong("cache.expire-after-access", expireAfterAccess));
+        for (String name : config.getStringList("cache.pinned")) {
+            Locale locale = parse(name, logger);
+            if (locale != null) pinned.add(locale);
+        }
+
+        unloadDelay = Math.max(0, config.getLong("cache.unload-delay", unloadDelay));
+        offHeap = config.getBoolean("cache.off-heap.enabled", offHeap);
+        offHeapCacheSize = Math.max(1, config.getInt("cache.off-heap.cache-size", offHeapCacheSize));
+        sharedStore = config.getString("cache.shared-store", sharedStore);
+        internValues = config.getBoolean("cache.intern-values", internValues);
+
+        warmUp = config.getBoolean("warm-up.enabled", warmUp);
+        for (String name : config.getStringList("warm-up.locales")) {
+            Locale warmUpLocale = parse(name, logger);
+            if (warmUpLocale != null) warmUpLocales.add(warmUpLocale);
+        }
+
+        memoryThreshold = config.getDouble("cache.memory-threshold", memoryThreshold);
+        if (memoryThreshold < 0 || memoryThreshold >= 1) {
+            logger.warning("'cache.memory-threshold' has to be between 0 and 1, shedding is disabled");
+            memoryThreshold = 0;
+        }
+    }
+
+    /**
+     * Returns the {@code Locale} that is used if the locale has no translation
+     * for a key. Every chain of fallbacks ends with {@link Locale#en_us}.
+     *
+     * @param locale The locale
+     * @return The fallback of the locale or {@code null} for
+     *         {@link Locale#en_us}
+     */
+    @Nullable
+    Locale getFallback(@NotNull Locale locale) {
+        if (locale == Locale.en_us) return null;
+
+        return fallbacks.getOrDefault(locale, Locale.en_us);
+    }
+
+    /**
+     * Returns the {@code Locale} of clients whose locale code is unknown and
+     * doesn't match the language of any {@code Locale}.
+     *
+     * @return The default locale
+     * @see LocaleResolver
+     */
+    @NotNull
+    Locale getDefaultLocale() {
+        return defaultLocale;
+    }
+
+    /**
+     * Returns the amount of threads that load locales asynchronously.
+     *
+     * @return The amount of loader threads
+     */
+    int getLoaderThreads() {
+        return loaderThreads;
+    }
+
+    /**
+     * Returns if translations should never wait for a locale to load. Until
+     * the locale is loaded the translation of {@link Locale#en_us} is used.
+     *
+     * @return {@code true} if translations never block
+     */
+    boolean isNonBlocking() {
+        return nonBlocking;
+    }
+
+    /**
+     * Returns if the keys of the namespace are loaded together with their
+     * locale. Keys of other namespaces are loaded the first time one of them
+     * is requested.
+     *
+     * @param namespace The namespace, in example {@code block}
+     * @return {@code true} if the namespace is loaded with its locale
+     * @see LocaleKeys#namespace(String)
+     */
+    boolean isNamespaceLoaded(@NotNull String namespace) {
+        return namespaces.isEmpty() || namespaces.contains(namespace);
+    }
+
+    /**
+     * Returns if the last locale of every player is remembered, so it can be
+     * loaded while the player is logging in.
+     *
+     * @return {@code true} if the locales of the players are remembered
+     */
+    boolean isRememberLocales() {
+        return rememberLocales;
+    }
+
+    /**
+     * Returns the amount of bytes the unpinned locales of the cache may
+     * occupy, measured by {@link LocaleReader#getWeight()}.
+     *
+     * @return The memory budget in bytes or {@code 0} if it is unlimited
+     */
+    long getMaxMemory() {
+        return maxMemory;
+    }
+
+    /**
+     * Returns after how many seconds without a translation an unpinned locale
+     * is cleared from the cache.
+     *
+     * @return The seconds or {@code 0} if locales don't expire
+     */
+    long getExpireAfterAccess() {
+        return expireAfterAccess;
+    }
+
+    /**
+     * Returns after how many seconds a locale without players is cleared from
+     * the cache. The delay grows for locales that are used again shortly
+     * after they were cleared.
+     *
+     * @return The seconds or {@code 0} if locales are cleared immediately
+     * @see LocaleCounter
+     */
+    long getUnloadDelay() {
+        return unloadDelay;
+    }
+
+    /**
+     * Returns if the translations of a locale are kept as UTF-8 outside of the
+     * heap and decoded when they are requested.
+     *
+     * @return {@code true} if the translations are stored off the heap
+     * @see Utf8Store
+     */
+    boolean isOffHeap() {
+        return offHeap;
+    }
+
+    /**
+     * Returns the amount of decoded translations of a locale that are kept
+     * on the heap in the off-heap mode.
+     *
+     * @return The amount of decoded translations
+     */
+    int getOffHeapCacheSize() {
+        return offHeapCacheSize;
+    }
+
+    /**
+     * Returns if equal translations of all locales are kept once, in example
+     * brand names or translations that are not translated yet.
+     *
+     * @return {@code true} if translations are interned
+     * @see LocaleCache#getInternedBytes()
+     */
+    boolean isInternValues() {
+        return internValues;
+    }
+
+    /**
+     * Returns the directory of the store that all servers of the host share.
+     *
+     * @return The directory or {@code null} if every server loads the
+     *         locales itself
+     * @see SharedStore
+     */
+    @Nullable
+    File getSharedStore() {
+        return sharedStore == null || sharedStore.isEmpty() ? null : new File(sharedStore);
+    }
+
+    /**
+     * Returns a hash of the fallbacks of every {@code Locale}, which is the
+     * same in every JVM with the same configuration.
+     *
+     * @return The hash of the fallbacks
+     */
+    int getFallbackHash() {
+        String[] names = new String[Locale.values().length];
+        for (Locale locale : Locale.values()) {
+            Locale fallback = getFallback(locale);
+            names[locale.ordinal()] = fallback == null ? null : fallback.name();
+        }
+        return Arrays.hashCode(names);
+    }
+
+    /**
+     * Returns if the locale is never cleared from the cache once it is
+     * loaded. {@link Locale#en_us} is always pinned, it is the last fallback.
+     *
+     * @param locale The locale
+     * @return {@code true} if the locale is pinned
+     */
+    boolean isPinned(@NotNull Locale locale) {
+        return pinned.contains(locale);
+    }
+
+    /**
+     * Returns if locales are loaded in parallel when the plugin is enabled.
+     *
+     * @return {@code true} if locales are warmed up
+     * @see #getWarmUpLocales()
+     */
+    boolean isWarmUp() {
+        return warmUp;
+    }
+
+    /**
+     * Returns the locales that are loaded when the plugin is enabled, they
+     * are never cleared from the cache.
+     *
+     * @return The locales to warm up, every locale if none are configured
+     */
+    @NotNull
+    Set<Locale> getWarmUpLocales() {
+        return warmUpLocales.isEmpty() ? EnumSet.allOf(Locale.class) : EnumSet.copyOf(warmUpLocales);
+    }
+
+    /**
+     * Returns the fraction of the heap after a garbage collection at which
+     * unpinned locales without players are cleared from the cache.
+     *
+     * @return The fraction or {@code 0} if shedding is disabled
+     */
+    double getMemoryThreshold() {
+        return memoryThreshold;
+    }
+
+    private boolean hasCycle(Locale locale) {
+        Set<Locale> visited = EnumSet.of(locale);
+
+        for (Locale next = getFallback(locale); next != null; next = getFallback(next)) {
+            if (!visited.add(next)) return true;
+        }
+        return false;
+    }
+
+    @Nullable
+    private static Locale parse(@Nullable String name, Logger logger) {
+        try {
+            return Locale.valueOf(String.valueOf(name).toLowerCase());
+        } catch (IllegalArgumentException e) {
+            logger.warning("Unknown locale '" + name + "' in config.yml");
+            return null;
+        }
+    }
+}
@@ -9,67 +9,168 @@
 
 package de.unpixelt.locale;
 
-import com.google.common.cache.LoadingCache;
-
-import java.util.HashMap;
+import java.util.EnumMap;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 
 /**
  * LocaleCounter is counting how many players are using a {@code Locale}. If one
- * {@code Locale} counts down to {@code 0} then it is also cleared from the cache.
+ * {@code Locale} counts down to {@code 0} then it is cleared from the cache
+ * after a grace period, unless a player uses it again meanwhile.
+ * <p>
+ * A {@code Locale} that is used again shortly after it was cleared is churning,
+ * in example because a player relogs. Its grace period is doubled every time
+ * this happens, up to {@value #MAX_STRIKES} times, and reset once the
+ * {@code Locale} stays unused for longer than {@value #HISTORY_FACTOR} grace
+ * periods.
+ * <p>
+ * The counts are atomic and indexed by {@link Locale#ordinal()}, reading them
+ * never locks. Only a count reaching or leaving {@code 0} synchronizes on the
+ * grace period bookkeeping.
  *
  * @see LocaleListener
  * @see Locale
  */
 class LocaleCounter {
 
-    private final LoadingCache<Locale, LocaleReader> cache;
-    private final HashMap<Locale, Short> counts = new HashMap<>();;
+    private static final int MAX_STRIKES = 4;
+    private static final int HISTORY_FACTOR = 10;
+
+    private final LocaleCache cache;
+    private final long gracePeriod;
+    private final AtomicIntegerArray counts = new AtomicIntegerArray(Locale.values().length);
+    private final EnumMap<Locale, Long> idleSince = new EnumMap<>(Locale.class);
+    private final EnumMap<Locale, Long> clearedAt = new EnumMap<>(Locale.class);
+    private final EnumMap<Locale, Integer> strikes = new EnumMap<>(Locale.class);
+    private volatile int avoidedReloads = 0;
 
-    LocaleCounter(final LoadingCache<Locale, LocaleReader> cache) {
+    LocaleCounter(final LocaleCache cache, final LocaleConfig config) {
         this.cache = cache;
+        this.gracePeriod = TimeUnit.SECONDS.toNanos(config.getUnloadDelay());
     }
 
     String usedLocales() {
         StringBuilder builder = new StringBuilder("\nLocale  :  Used \n");
-        for (Map.Entry<Locale, Short> entry : counts.entrySet()) {
-            byte keyLength = (byte) (7 - entry.getKey().name().length());
-            builder.append(entry.getKey());
+        for (Locale locale : Locale.values()) {
+            int count = counts.get(locale.ordinal());
+            if (count == 0) continue;
+
+            byte keyLength = (byte) (7 - locale.name().length());
+            builder.append(locale);
             for (; keyLength > 0; keyLength--) {
                 builder.append(" ");
             }
-            builder.append(" :  " + entry.getValue() + "\n");
+            builder.append(" :  " + count + "\n");
         }
+        builder.append("Reloads avoided: " + avoidedReloads + "\n");
+        builder.append("Shared with fallbacks (est.): " + cache.getFallbackBytes() / 1024 + " KB\n");
+        builder.append("Interned translations (est.): " + cache.getInternedBytes() / 1024 + " KB\n");
         return builder.toString();
     }
 
+    /**
+     * Returns how many times a locale was used again within its grace period,
+     * each of them would have been loaded again otherwise.
+     * @return the amount of avoided reloads
+     */
+    int getAvoidedReloads() {
+        return avoidedReloads;
+    }
+
+    /**
+     * Returns how many players are using the locale.
+     * @param locale the locale
+     * @return the amount of players
+     */
+    int getCount(Locale locale) {
+        return counts.get(locale.ordinal());
+    }
+
+    /**
+     * Returns if at least one player is using the locale.
+     * @param locale the locale
+     * @return {@code true} if the locale is used
+     */
+    boolean isUsed(Locale locale) {
+        return counts.get(locale.ordinal()) > 0;
+    }
+
     /**
      * Increment the count of the locale by one.
      * @param locale the locale to increment
      */
     void increment(Locale locale) {
-        short count = (short) (counts.getOrDefault(locale, (short) 0) + 1);
-        counts.put(locale, count);
+        if (counts.getAndIncrement(locale.ordinal()) == 0) readmit(locale);
     }
 
     /**
      * Decrement the count of the locale by one.
      * <br>
-     * If locale counts down to {@code 0} then it's cleared from cache.
-     * @param locale the locale to decrement
+     * If locale counts down to {@code 0} then it's cleared from cache once its
+     * grace period is over.
+     * @param locale the locale to decrement, {@code null} is ignored
      */
     void decrement(Locale locale) {
-        short count = (short) (counts.getOrDefault(locale, (short) 0) - 1);
+        if (locale == null) return;
 
-        if (count == 0) {
-            counts.remove(locale);
+        if (counts.getAndUpdate(locale.ordinal(), count -> count > 0 ? count - 1 : 0) == 1) idle(locale);
+    }
 
-            if (cache.getIfPresent(locale) == null) return;
+    private synchronized void readmit(Locale locale) {
+        if (idleSince.remove(locale) != null) {
+            // It may have expired from the cache meanwhile and be loaded again.
+            if (cache.getIfPresent(locale) != null) avoidedReloads++;
+            return;
+        }
+
+        Long cleared = clearedAt.remove(locale);
+        if (cleared != null && System.nanoTime() - cleared < gracePeriod(locale) * HISTORY_FACTOR) {
+            strikes.merge(locale, 1, (a, b) -> Math.min(a + b, MAX_STRIKES));
+        }
+    }
+
+    private synchronized void idle(Locale locale) {
+        idleSince.put(locale, System.nanoTime());
+        if (gracePeriod == 0) sweep();
+    }
+
+    /**
+     * Clears every locale whose grace period is over from the cache and
+     * forgets locales that weren't used again for a long time.
+     */
+    synchronized void sweep() {
+        long now = System.nanoTime();
+
+        for (Iterator<Map.Entry<Locale, Long>> it = idleSince.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<Locale, Long> entry = it.next();
+            Locale locale = entry.getKey();
+            if (isUsed(locale)) {
+                // Used again while it was marked as idle.
+                it.remove();
+                continue;
+            }
+            if (now - entry.getValue() < gracePeriod(locale)) continue;
+
+            it.remove();
+            clearedAt.put(locale, now);
+
+            if (cache.getIfPresent(locale) == null) continue;
             Translate.getDebugger().unloadFromCache(locale);
             cache.invalidate(locale);
-            return;
         }
 
-        counts.put(locale, count);
+        for (Iterator<Map.Entry<Locale, Long>> it = clearedAt.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<Locale, Long> entry = it.next();
+            if (now - entry.getValue() < gracePeriod(entry.getKey()) * HISTORY_FACTOR) continue;
+
+            it.remove();
+            strikes.remove(entry.getKey());
+        }
+    }
+
+    private long gracePeriod(Locale locale) {
+        return gracePeriod << strikes.getOrDefault(locale, 0);
     }
 }
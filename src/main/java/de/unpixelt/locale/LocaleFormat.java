@@ -0,0 +1,566 @@
+//  Copyright (C) 2022 Unp1xelt. All rights reserved.
+//
+//  This Source Code Form is subject to the terms of the Mozilla Public
+//  License, v. 2.0. If a copy of the MPL was not distributed with this
+//  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+//
+//  This Source Code Form is "Incompatible With Secondary Licenses", as
+//  defined by the Mozilla Public License, v. 2.0.
+
+package de.unpixelt.locale;
+
+import com.google.common.io.ByteStreams;
+import com.google.gson.stream.JsonReader;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * LocaleFormat describes the compiled binary format of a language file. The
+ * files are written at build time by {@link LocaleCompiler} and read by
+ * {@link LocaleReader}.
+ *
+ * <p> A compiled file starts with the {@link #MAGIC} number and the format
+ * {@link #VERSION}. The dictionary ({@link LocaleKeys}) continues with a string
+ * table of all keys. A language file continues with the hash of the dictionary
+ * it was compiled against, a string table with the name of its base locale if
+ * it is a delta, the ids of all keys the locale translates and a string table
+ * of their values in the same order, and the ids of its tombstones. A string
+ * table consists of
+ * <ul>
+ *     <li>the amount of strings
+ *     <li>the end offset of each string
+ *     <li>all strings as one UTF-8 encoded block
+ * </ul>
+ * so a whole table is read with a few bulk reads instead of tokenizing JSON.
+ * The ids are written in ascending order, so the values of a range of keys,
+ * like a namespace, can be decoded without decoding the others.
+ *
+ * <p> Regional variants, like {@code en_gb}, mostly translate like their
+ * fallback, which is their base. A variant is compiled as a delta that only
+ * contains the values that differ from its base, and a tombstone for every
+ * key the base translates but the variant doesn't. The values of a delta are
+ * the values of its base with the tombstones removed and its own values
+ * applied. A base can be a delta itself, in example {@code es_ar} to
+ * {@code es_mx} to {@code es_es}.
+ *
+ * <p> Snapshots of override files ({@link LocaleOverrides}) use the same
+ * layout as a language file with their keys in between the header and the
+ * dictionary hash, followed by the entries that are not in the dictionary.
+ *
+ * @see LocaleCompiler
+ * @see LocaleKeys
+ */
+final class LocaleFormat {
+
+    /** The first four bytes of every compiled file. */
+    static final int MAGIC = 0x4C415049;
+    /** Has to be increased whenever the layout of a compiled file changes. */
+    static final int VERSION = 3;
+    /** The size of a snapshot's header, up to the hash of the dictionary. */
+    static final int SNAPSHOT_HEADER = 4 * Integer.BYTES + Long.BYTES;
+
+    static final String DIRECTORY = "lang/";
+    static final String JSON = ".json";
+    static final String BINARY = ".bin";
+
+    private LocaleFormat() {}
+
+    /**
+     * Reads all entries of a language file in JSON format.
+     *
+     * @param reader The reader of the JSON file
+     * @return All entries in the order of the file
+     * @throws IOException if the file is not a flat JSON object of strings
+     */
+    @NotNull
+    static Map<String, String> readJson(@NotNull Reader reader) throws IOException {
+        return readJson(reader, key -> true);
+    }
+
+    /**
+     * Reads the entries of a language file in JSON format whose keys pass the
+     * filter. The file is streamed, values of other keys are skipped without
+     * being decoded.
+     *
+     * @param reader The reader of the JSON file
+     * @param filter Tests if the entry of a key is read
+     * @return The entries in the order of the file
+     * @throws IOException if the file is not a flat JSON object of strings
+     */
+    @NotNull
+    static Map<String, String> readJson(@NotNull Reader reader, @NotNull Predicate<String> filter) throws IOException {
+        Map<String, String> entries = new LinkedHashMap<>();
+
+        try (JsonReader json = new JsonReader(reader)) {
+            json.beginObject();
+            while (json.hasNext()) {
+                String key = json.nextName();
+                if (filter.test(key)) {
+                    entries.put(key, json.nextString());
+                } else {
+                    json.skipValue();
+                }
+            }
+            json.endObject();
+        }
+        return entries;
+    }
+
+    /**
+     * Writes the dictionary in the compiled binary format.
+     *
+     * @param out The stream to write to
+     * @param keys All keys sorted by their id
+     * @throws IOException if an I/O error occurs
+     */
+    static void writeKeys(@NotNull OutputStream out, @NotNull List<String> keys) throws IOException {
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        writeStrings(data, keys);
+        data.flush();
+    }
+
+    /**
+     * Reads the dictionary of a file in the compiled binary format.
+     *
+     * @param buffer The content of the compiled file
+     * @return All keys sorted by their id
+     * @throws IOException if the content is not in the current format
+     */
+    @NotNull
+    static String[] readKeys(@NotNull ByteBuffer buffer) throws IOException {
+        checkHeader(buffer);
+        return readStrings(buffer);
+    }
+
+    /**
+     * Writes the values of a locale in the compiled binary format.
+     *
+     * @param out The stream to write to
+     * @param values The values indexed by the id of their key, {@code null} if
+     *               the locale has no translation for a key
+     * @param dictionary The {@link LocaleKeys#hash() hash} of the dictionary
+     * @throws IOException if an I/O error occurs
+     */
+    static void write(@NotNull OutputStream out, @NotNull String[] values, int dictionary) throws IOException {
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        writeValues(data, values, dictionary);
+        data.flush();
+    }
+
+    /**
+     * Writes the values of a locale in the compiled binary format as a delta
+     * to the values of its base.
+     *
+     * @param out The stream to write to
+     * @param values The values indexed by the id of their key
+     * @param base The name of the base locale
+     * @param baseValues The values of the base locale
+     * @param dictionary The {@link LocaleKeys#hash() hash} of the dictionary
+     * @return The amount of values and tombstones of the delta
+     * @throws IOException if an I/O error occurs
+     */
+    static int writeDelta(@NotNull OutputStream out, @NotNull String[] values, @NotNull String base,
+                          @NotNull String[] baseValues, int dictionary) throws IOException {
+        String[] changed = new String[values.length];
+        int[] tombstones = new int[values.length];
+        int count = 0;
+        int tombstoneCount = 0;
+
+        for (int id = 0; id < values.length; id++) {
+            if (values[id] == null) {
+                if (baseValues[id] != null) tombstones[tombstoneCount++] = id;
+            } else if (!values[id].equals(baseValues[id])) {
+                changed[id] = values[id];
+                count++;
+            }
+        }
+
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        writeValues(data, changed, dictionary, base, Arrays.copyOf(tombstones, tombstoneCount));
+        data.flush();
+        return count + tombstoneCount;
+    }
+
+    /**
+     * Reads the values of a file in the compiled binary format. The values are
+     * decoded by {@link Values#fill(String[], int, int)}, only for the keys
+     * that are needed.
+     *
+     * @param buffer The content of the compiled file
+     * @param dictionary The {@link LocaleKeys#hash() hash} of the dictionary
+     * @return The encoded values
+     * @throws IOException if the content is not in the current format or was
+     *         compiled against another dictionary
+     */
+    @NotNull
+    static Values read(@NotNull ByteBuffer buffer, int dictionary) throws IOException {
+        checkHeader(buffer);
+        return readValues(buffer, dictionary);
+    }
+
+    /**
+     * Writes a snapshot of a parsed override file. A snapshot is a language
+     * file with the {@code jar} and {@code source} hashes after the header,
+     * followed by the keys and values that are not in the dictionary.
+     *
+     * @param out The stream to write to
+     * @param jar The hash of the plugin's jar
+     * @param source The hash of the override file
+     * @param values The values indexed by the id of their key
+     * @param extras The values of keys that are not in the dictionary
+     * @param dictionary The {@link LocaleKeys#hash() hash} of the dictionary
+     * @throws IOException if an I/O error occurs
+     */
+    static void writeSnapshot(@NotNull OutputStream out, int jar, long source, @NotNull String[] values,
+                              @NotNull Map<String, String> extras, int dictionary) throws IOException {
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeInt(jar);
+        data.writeLong(source);
+        writeValues(data, values, dictionary);
+        writeStrings(data, extras.keySet());
+        writeStrings(data, extras.values());
+        data.flush();
+    }
+
+    /**
+     * Reads a snapshot of a parsed override file.
+     *
+     * @param buffer The content of the snapshot
+     * @param jar The hash of the plugin's jar
+     * @param source The hash of the override file
+     * @param dictionary The {@link LocaleKeys#hash() hash} of the dictionary
+     * @return The snapshot or {@code null} if it is outdated
+     * @throws IOException if the content is corrupted
+     */
+    @Nullable
+    static Snapshot readSnapshot(@NotNull ByteBuffer buffer, int jar, long source, int dictionary) throws IOException {
+        if (!isSnapshot(buffer, jar, source, dictionary)) return null;
+
+        // The hash of the dictionary is read with the values.
+        buffer.position(buffer.position() + SNAPSHOT_HEADER - Integer.BYTES);
+        Values values = readValues(buffer, dictionary);
+        String[] keys = readStrings(buffer);
+        String[] strings = readStrings(buffer);
+        if (keys.length != strings.length) throw new IOException("Corrupted snapshot");
+
+        Map<String, String> extras = new HashMap<>();
+        for (int i = 0; i < keys.length; i++) {
+            extras.put(keys[i], strings[i]);
+        }
+        return new Snapshot(values, extras);
+    }
+
+    /**
+     * Returns if the buffer starts with the header of an up to date snapshot,
+     * without changing its position.
+     *
+     * @param buffer The content of the snapshot, at least its header
+     * @param jar The hash of the plugin's jar
+     * @param source The hash of the override file
+     * @param dictionary The {@link LocaleKeys#hash() hash} of the dictionary
+     * @return {@code true} if the snapshot is up to date
+     * @see #SNAPSHOT_HEADER
+     */
+    static boolean isSnapshot(@NotNull ByteBuffer buffer, int jar, long source, int dictionary) {
+        int start = buffer.position();
+        return buffer.remaining() >= SNAPSHOT_HEADER
+                && buffer.getInt(start) == MAGIC && buffer.getInt(start + 4) == VERSION
+                && buffer.getInt(start + 8) == jar && buffer.getLong(start + 12) == source
+                && buffer.getInt(start + 20) == dictionary;
+    }
+
+    /**
+     * Returns an {@code InputStream} from the resource.
+     *
+     * @param path The resource filepath
+     * @return {@link InputStream} from the resource file
+     * @throws IllegalArgumentException If this path to the resource does not
+     *         exist
+     */
+    @NotNull
+    static InputStream getFileFromResourceAsStream(String path) {
+        // The class loader that loaded the class
+        ClassLoader classLoader = LocaleFormat.class.getClassLoader();
+        InputStream inputStream = classLoader.getResourceAsStream(path);
+
+        // The stream holding the file content
+        if (inputStream == null) {
+            throw new IllegalArgumentException("Filepath not found! " + path);
+        } else {
+            return inputStream;
+        }
+    }
+
+    /**
+     * Returns the content of a compiled resource.
+     *
+     * @param path The resource filepath without file extension
+     * @return The content of the compiled file or {@code null} if the resource
+     *         was not compiled
+     * @throws IOException if an I/O error occurs
+     */
+    @Nullable
+    static ByteBuffer readCompiled(String path) throws IOException {
+        InputStream compiled = LocaleFormat.class.getClassLoader().getResourceAsStream(path + BINARY);
+        if (compiled == null) return null;
+
+        try (InputStream inputStream = compiled) {
+            return ByteBuffer.wrap(ByteStreams.toByteArray(inputStream));
+        }
+    }
+
+    /**
+     * Reads all entries of a language file resource in JSON format.
+     *
+     * @param path The resource filepath without file extension
+     * @return All entries in the order of the file
+     * @throws IOException if the file can't be read
+     * @throws IllegalArgumentException If this path to the resource does not
+     *         exist
+     */
+    @NotNull
+    static Map<String, String> readJsonResource(String path) throws IOException {
+        return readJsonResource(path, key -> true);
+    }
+
+    /**
+     * Reads the entries of a language file resource in JSON format whose keys
+     * pass the filter.
+     *
+     * @param path The resource filepath without file extension
+     * @param filter Tests if the entry of a key is read
+     * @return The entries in the order of the file
+     * @throws IOException if the file can't be read
+     * @throws IllegalArgumentException If this path to the resource does not
+     *         exist
+     * @see #readJson(Reader, Predicate)
+     */
+    @NotNull
+    static Map<String, String> readJsonResource(String path, Predicate<String> filter) throws IOException {
+        InputStream inputStream = getFileFromResourceAsStream(path + JSON);
+        try (Reader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
+            return readJson(reader, filter);
+        }
+    }
+
+    private static void checkHeader(ByteBuffer buffer) throws IOException {
+        if (buffer.getInt() != MAGIC) {
+            throw new IOException("Not a compiled language file");
+        }
+
+        int version = buffer.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported format version " + version + ", expected " + VERSION);
+        }
+    }
+
+    private static void writeValues(DataOutputStream data, String[] values, int dictionary) throws IOException {
+        writeValues(data, values, dictionary, null, new int[0]);
+    }
+
+    private static void writeValues(DataOutputStream data, String[] values, int dictionary, @Nullable String base,
+                                    int[] tombstones) throws IOException {
+        List<String> present = new ArrayList<>(values.length);
+        data.writeInt(dictionary);
+        writeStrings(data, base == null ? Collections.emptyList() : Collections.singletonList(base));
+
+        int count = 0;
+        for (String value : values) {
+            if (value != null) count++;
+        }
+        data.writeInt(count);
+        for (int id = 0; id < values.length; id++) {
+            if (values[id] == null) continue;
+
+            data.writeInt(id);
+            present.add(values[id]);
+        }
+        writeStrings(data, present);
+
+        data.writeInt(tombstones.length);
+        for (int id : tombstones) {
+            data.writeInt(id);
+        }
+    }
+
+    private static Values readValues(ByteBuffer buffer, int dictionary) throws IOException {
+        if (buffer.getInt() != dictionary) {
+            throw new IOException("Language file was compiled against another dictionary");
+        }
+
+        String[] base = readStrings(buffer);
+        int[] ids = readInts(buffer);
+        StringTable table = new StringTable(buffer);
+        if (ids.length != table.ends.length) {
+            throw new IOException("Corrupted language file, " + ids.length + " keys but "
+                    + table.ends.length + " values");
+        }
+        return new Values(base.length == 0 ? null : base[0], ids, table, readInts(buffer));
+    }
+
+    private static int[] readInts(ByteBuffer buffer) {
+        int[] ints = new int[buffer.getInt()];
+        buffer.asIntBuffer().get(ints);
+        buffer.position(buffer.position() + ints.length * Integer.BYTES);
+        return ints;
+    }
+
+    private static void writeStrings(DataOutputStream out, Collection<String> strings) throws IOException {
+        List<byte[]> encoded = new ArrayList<>(strings.size());
+        for (String string : strings) {
+            encoded.add(string.getBytes(StandardCharsets.UTF_8));
+        }
+
+        out.writeInt(encoded.size());
+        int end = 0;
+        for (byte[] bytes : encoded) {
+            end += bytes.length;
+            out.writeInt(end);
+        }
+        for (byte[] bytes : encoded) {
+            out.write(bytes);
+        }
+    }
+
+    private static String[] readStrings(ByteBuffer buffer) {
+        StringTable table = new StringTable(buffer);
+        String[] strings = new String[table.ends.length];
+
+        for (int i = 0; i < strings.length; i++) {
+            strings[i] = table.decode(i);
+        }
+        return strings;
+    }
+
+    /**
+     * A string table whose strings are decoded on demand. The strings are
+     * decoded straight from the buffer, a mapped file is never copied to the
+     * heap.
+     */
+    private static class StringTable {
+
+        final int[] ends;
+        private final ByteBuffer block;
+
+        StringTable(StringTable table) {
+            this.ends = table.ends;
+            this.block = table.block;
+        }
+
+        StringTable(ByteBuffer buffer) {
+            int count = buffer.getInt();
+            ends = new int[count];
+            buffer.asIntBuffer().get(ends);
+            buffer.position(buffer.position() + count * Integer.BYTES);
+
+            int length = count == 0 ? 0 : ends[count - 1];
+            ByteBuffer block = buffer.slice();
+            block.limit(length);
+            this.block = block;
+            buffer.position(buffer.position() + length);
+        }
+
+        String decode(int index) {
+            int start = index == 0 ? 0 : ends[index - 1];
+            int length = ends[index] - start;
+            if (block.hasArray()) {
+                return new String(block.array(), block.arrayOffset() + start, length, StandardCharsets.UTF_8);
+            }
+
+            // Duplicated as other threads may decode at the same time.
+            ByteBuffer bytes = block.duplicate();
+            bytes.position(start).limit(start + length);
+            return StandardCharsets.UTF_8.decode(bytes).toString();
+        }
+
+        /**
+         * Estimates the size of all strings once decoded, counted like
+         * {@code LocaleReader} does with their object and array headers and
+         * two bytes per char. The chars are counted without decoding, as the
+         * bytes that don't continue a UTF-8 sequence.
+         */
+        long weigh() {
+            int length = ends.length == 0 ? 0 : ends[ends.length - 1];
+            long weight = 40L * ends.length;
+            for (int i = 0; i < length; i++) {
+                if ((block.get(i) & 0xC0) != 0x80) weight += 2;
+            }
+            return weight;
+        }
+    }
+
+    /**
+     * A snapshot of a parsed override file.
+     */
+    static final class Snapshot {
+
+        final Values values;
+        final Map<String, String> extras;
+
+        private Snapshot(Values values, Map<String, String> extras) {
+            this.values = values;
+            this.extras = extras;
+        }
+    }
+
+    /**
+     * The encoded values of a compiled language file.
+     */
+    static final class Values extends StringTable {
+
+        /** The name of the base locale of a delta. */
+        @Nullable
+        final String base;
+        private final int[] ids;
+        private final int[] tombstones;
+
+        private Values(@Nullable String base, int[] ids, StringTable table, int[] tombstones) {
+            super(table);
+            this.base = base;
+            this.ids = ids;
+            this.tombstones = tombstones;
+        }
+
+        /**
+         * Decodes the values of the keys with an id in the range. The values
+         * of a delta are applied to the values of its base, which have to be
+         * filled first.
+         *
+         * @param values The values indexed by the id of their key
+         * @param from The first id, inclusive
+         * @param to The last id, exclusive
+         */
+        void fill(@NotNull String[] values, int from, int to) {
+            int index = Arrays.binarySearch(tombstones, from);
+            if (index < 0) index = -index - 1;
+
+            for (; index < tombstones.length && tombstones[index] < to; index++) {
+                values[tombstones[index]] = null;
+            }
+
+            index = Arrays.binarySearch(ids, from);
+            if (index < 0) index = -index - 1;
+
+            for (; index < ids.length && ids[index] < to; index++) {
+                values[ids[index]] = decode(index);
+            }
+        }
+    }
+}
@@ -0,0 +1,100 @@
+//  Copyright (C) 2022 Unp1xelt. All rights reserved.
+//
+//  This Source Code Form is subject to the terms of the Mozilla Public
+//  License, v. 2.0. If a copy of the MPL was not distributed with this
+//  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+//
+//  This Source Code Form is "Incompatible With Secondary Licenses", as
+//  defined by the Mozilla Public License, v. 2.0.
+
+package de.unpixelt.locale;
+
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+
+/**
+ * LocaleHistory remembers the last {@code Locale} of every player, so it can be
+ * loaded while the player is still logging in. The history is stored in the
+ * {@code players.yml} of the plugin's folder.
+ *
+ * @see LocaleListener
+ */
+class LocaleHistory {
+
+    static final String FILE_NAME = "players.yml";
+
+    private final File file;
+    private final Map<UUID, Locale> locales = new ConcurrentHashMap<>();
+    private volatile boolean changed = false;
+
+    /**
+     * Constructs the history and loads it from the file, if it exists.
+     *
+     * @param file The file the history is stored in
+     */
+    LocaleHistory(@NotNull File file) {
+        this.file = file;
+
+        if (!file.exists()) return;
+
+        YamlConfiguration yaml = YamlConfiguration.loadConfiguration(file);
+        for (String key : yaml.getKeys(false)) {
+            try {
+                locales.put(UUID.fromString(key), Locale.valueOf(yaml.getString(key)));
+            } catch (IllegalArgumentException | NullPointerException ignored) {
+                // Locales which are no longer supported are forgotten.
+            }
+        }
+    }
+
+    /**
+     * Returns the last locale the player used.
+     *
+     * @param uuid The unique id of the player
+     * @return The last locale of the player or {@code null} if the player is
+     *         unknown
+     */
+    @Nullable
+    Locale get(@NotNull UUID uuid) {
+        return locales.get(uuid);
+    }
+
+    /**
+     * Remembers the locale the player uses.
+     *
+     * @param uuid The unique id of the player
+     * @param locale The locale of the player
+     */
+    void put(@NotNull UUID uuid, @NotNull Locale locale) {
+        if (locales.put(uuid, locale) != locale) changed = true;
+    }
+
+    /**
+     * Stores the history in its file, if it has changed since it was stored
+     * the last time.
+     */
+    synchronized void save() {
+        if (!changed) return;
+        changed = false;
+
+        YamlConfiguration yaml = new YamlConfiguration();
+        for (Map.Entry<UUID, Locale> entry : locales.entrySet()) {
+            yaml.set(entry.getKey().toString(), entry.getValue().name());
+        }
+
+        try {
+            yaml.save(file);
+        } catch (IOException e) {
+            changed = true;
+            Translate.getPlugin().getLogger().log(Level.WARNING, "Unable to save " + FILE_NAME, e);
+        }
+    }
+}
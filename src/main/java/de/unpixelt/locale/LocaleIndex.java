@@ -0,0 +1,116 @@
+//  Copyright (C) 2022 Unp1xelt. All rights reserved.
+//
+//  This Source Code Form is subject to the terms of the Mozilla Public
+//  License, v. 2.0. If a copy of the MPL was not distributed with this
+//  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+//
+//  This Source Code Form is "Incompatible With Secondary Licenses", as
+//  defined by the Mozilla Public License, v. 2.0.
+
+package de.unpixelt.locale;
+
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * LocaleIndex knows the {@code Locale} of every online player and groups the
+ * players by their {@code Locale}. It is updated by the {@link LocaleListener}
+ * and can be read from any thread.
+ *
+ * @see Translate#getPlayers(Locale)
+ * @see Translate#getActiveLocales()
+ */
+final class LocaleIndex {
+
+    private final Map<UUID, Locale> locales = new ConcurrentHashMap<>();
+    private final List<Set<Player>> players = new ArrayList<>(Locale.values().length);
+    private final List<Collection<Player>> views = new ArrayList<>(Locale.values().length);
+    private final Set<Locale> active = ConcurrentHashMap.newKeySet();
+    private final Set<Locale> activeView = Collections.unmodifiableSet(active);
+
+    LocaleIndex() {
+        for (int i = 0; i < Locale.values().length; i++) {
+            Set<Player> set = ConcurrentHashMap.newKeySet();
+            players.add(set);
+            views.add(Collections.unmodifiableCollection(set));
+        }
+    }
+
+    /**
+     * Returns the locale of the player.
+     *
+     * @param uuid The unique id of the player
+     * @return The player's locale or {@code null} if it isn't known yet
+     */
+    @Nullable
+    Locale getLocale(@NotNull UUID uuid) {
+        return locales.get(uuid);
+    }
+
+    /**
+     * Returns a live view of the players using the locale.
+     *
+     * @param locale The locale
+     * @return An unmodifiable view of the players
+     */
+    @NotNull
+    Collection<Player> getPlayers(@NotNull Locale locale) {
+        return views.get(locale.ordinal());
+    }
+
+    /**
+     * Returns a live view of the locales used by at least one player.
+     *
+     * @return An unmodifiable view of the locales
+     */
+    @NotNull
+    Set<Locale> getActiveLocales() {
+        return activeView;
+    }
+
+    /**
+     * Sets the locale of the player.
+     *
+     * @param player The player
+     * @param locale The player's new locale
+     * @return The player's previous locale or {@code null} if it wasn't known
+     */
+    @Nullable
+    Locale put(@NotNull Player player, @NotNull Locale locale) {
+        Locale previous = locales.put(player.getUniqueId(), locale);
+        if (previous == locale) return previous;
+
+        players.get(locale.ordinal()).add(player);
+        active.add(locale);
+        if (previous != null) removeFrom(player, previous);
+        return previous;
+    }
+
+    /**
+     * Removes the player from the index.
+     *
+     * @param player The player
+     * @return The player's locale or {@code null} if it wasn't known
+     */
+    @Nullable
+    Locale remove(@NotNull Player player) {
+        Locale previous = locales.remove(player.getUniqueId());
+        if (previous != null) removeFrom(player, previous);
+        return previous;
+    }
+
+    private void removeFrom(Player player, Locale locale) {
+        Set<Player> set = players.get(locale.ordinal());
+        set.remove(player);
+
+        if (set.isEmpty()) {
+            active.remove(locale);
+            // A player may have been added meanwhile.
+            if (!set.isEmpty()) active.add(locale);
+        }
+    }
+}
@@ -0,0 +1,245 @@
+//  Copyright (C) 2022 Unp1xelt. All rights reserved.
+//
+//  This Source Code Form is subject to the terms of the Mozilla Public
+//  License, v. 2.0. If a copy of the MPL was not distributed with this
+//  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+//
+//  This Source Code Form is "Incompatible With Secondary Licenses", as
+//  defined by the Mozilla Public License, v. 2.0.
+
+package de.unpixelt.locale;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.*;
+
+/**
+ * LocaleKeys is the dictionary of the keys of all language files, which is
+ * shared by every {@code LocaleReader}. Each key has an id, that is the index of
+ * its value in the table of a {@link LocaleReader}.
+ *
+ * <p> The dictionary is written sorted at build time by {@link LocaleCompiler}.
+ * If no compiled dictionary is available the keys of {@link Locale#en_us} are
+ * used instead.
+ *
+ * <p> Since the keys are sorted, the keys of a namespace, like {@code block},
+ * follow each other. Each run of keys with the same namespace is a section,
+ * which a {@link LocaleReader} loads as a whole.
+ *
+ * @see LocaleFormat
+ */
+final class LocaleKeys {
+
+    /** The name of the dictionary file, without file extension. */
+    static final String FILE = "keys";
+
+    private static final String[] KEYS = load();
+    private static final Map<String, Integer> IDS = index(KEYS);
+    private static final int HASH = Arrays.hashCode(KEYS);
+    private static final List<String> VIEW = Collections.unmodifiableList(Arrays.asList(KEYS));
+
+    /** The section of every id. */
+    private static final char[] SECTIONS = new char[KEYS.length];
+    /** The first id of every section and the size of the dictionary. */
+    private static final int[] SECTION_STARTS = sections(KEYS);
+
+    private LocaleKeys() {}
+
+    /**
+     * Returns the id of the key.
+     *
+     * @param key The key
+     * @return The id of the key or {@code -1} if the key is not in the
+     *         dictionary
+     */
+    static int id(@NotNull String key) {
+        Integer id = IDS.get(key);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * Returns the key with the id.
+     *
+     * @param id The id of the key
+     * @return The key
+     * @throws ArrayIndexOutOfBoundsException if the id is not in the dictionary
+     */
+    @NotNull
+    static String key(int id) {
+        return KEYS[id];
+    }
+
+    /**
+     * Returns all keys of the dictionary in ascending order, the index of a
+     * key is its id.
+     *
+     * @return An unmodifiable view of the keys
+     */
+    @NotNull
+    static List<String> all() {
+        return VIEW;
+    }
+
+    /**
+     * Returns the id of the first key starting with the prefix. The keys are
+     * sorted, so all keys with the prefix follow it.
+     *
+     * @param prefix The prefix
+     * @return The id of the first key with the prefix, or where it would be
+     */
+    static int from(@NotNull String prefix) {
+        int id = Arrays.binarySearch(KEYS, prefix);
+        return id < 0 ? -id - 1 : id;
+    }
+
+    /**
+     * Returns the id after the last key starting with the prefix.
+     *
+     * @param prefix The prefix
+     * @param from The id returned by {@link #from(String)}
+     * @return The id after the last key with the prefix
+     */
+    static int to(@NotNull String prefix, int from) {
+        int low = from;
+        int high = KEYS.length;
+
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (KEYS[mid].startsWith(prefix)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Returns the keys starting with the prefix, in example all keys of the
+     * {@code block.minecraft.} namespace.
+     *
+     * @param prefix The prefix
+     * @return An unmodifiable view of the keys
+     */
+    @NotNull
+    static List<String> withPrefix(@NotNull String prefix) {
+        int from = from(prefix);
+        return VIEW.subList(from, to(prefix, from));
+    }
+
+    /**
+     * Returns the namespace of the key, the part before the first dot.
+     *
+     * @param key The key
+     * @return The namespace of the key, in example {@code block}
+     */
+    @NotNull
+    static String namespace(@NotNull String key) {
+        int index = key.indexOf('.');
+        return index < 0 ? key : key.substring(0, index);
+    }
+
+    /**
+     * Returns the section of the key with the id.
+     *
+     * @param id The id of the key
+     * @return The section of the key
+     */
+    static int section(int id) {
+        return SECTIONS[id];
+    }
+
+    /**
+     * Returns the amount of sections.
+     *
+     * @return The amount of sections
+     */
+    static int sections() {
+        return SECTION_STARTS.length - 1;
+    }
+
+    /**
+     * Returns the first id of the section.
+     *
+     * @param section The section
+     * @return The first id, inclusive
+     */
+    static int sectionFrom(int section) {
+        return SECTION_STARTS[section];
+    }
+
+    /**
+     * Returns the id after the last id of the section.
+     *
+     * @param section The section
+     * @return The last id, exclusive
+     */
+    static int sectionTo(int section) {
+        return SECTION_STARTS[section + 1];
+    }
+
+    /**
+     * Returns the amount of keys in the dictionary.
+     *
+     * @return The amount of keys
+     */
+    static int size() {
+        return KEYS.length;
+    }
+
+    /**
+     * Returns the hash of the dictionary. A compiled language file can only be
+     * read with the dictionary it was compiled against.
+     *
+     * @return The hash of all keys
+     */
+    static int hash() {
+        return HASH;
+    }
+
+    private static String[] load() {
+        try {
+            ByteBuffer compiled = LocaleFormat.readCompiled(LocaleFormat.DIRECTORY + FILE);
+            if (compiled != null) {
+                return LocaleFormat.readKeys(compiled);
+            }
+
+            Set<String> keys = LocaleFormat.readJsonResource(LocaleFormat.DIRECTORY + Locale.en_us.name()).keySet();
+            String[] sorted = keys.toArray(new String[0]);
+            Arrays.sort(sorted);
+            return sorted;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to load the dictionary", e);
+        }
+    }
+
+    private static int[] sections(String[] keys) {
+        List<Integer> starts = new ArrayList<>();
+        String namespace = null;
+
+        for (int id = 0; id < keys.length; id++) {
+            String next = namespace(keys[id]);
+            if (!next.equals(namespace)) {
+                starts.add(id);
+                namespace = next;
+            }
+            SECTIONS[id] = (char) (starts.size() - 1);
+        }
+        starts.add(keys.length);
+
+        int[] array = new int[starts.size()];
+        for (int i = 0; i < array.length; i++) array[i] = starts.get(i);
+        return array;
+    }
+
+    private static Map<String, Integer> index(String[] keys) {
+        Map<String, Integer> ids = new HashMap<>((int) (keys.length / 0.75f) + 1);
+        for (int id = 0; id < keys.length; id++) {
+            ids.put(keys[id], id);
+        }
+        return ids;
+    }
+}
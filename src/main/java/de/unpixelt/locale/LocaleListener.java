@@ -14,26 +14,27 @@ import de.unpixelt.locale.events.LocalePlayerLocaleChangeEvent;
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.event.player.*;
 import org.jetbrains.annotations.NotNull;
-
-import java.util.HashMap;
-import java.util.UUID;
+import org.jetbrains.annotations.Nullable;
 
 class LocaleListener implements Listener {
 
-    private final HashMap<UUID, Locale> playerLocale;
+    private final LocaleIndex index;
     private final LocaleCounter counter;
+    private final LocaleHistory history;
 
-    LocaleListener(LocaleCounter countMap) {
+    LocaleListener(LocaleIndex index, LocaleCounter countMap, @Nullable LocaleHistory history) {
+        this.index = index;
         this.counter = countMap;
-        this.playerLocale = new HashMap<>();
+        this.history = history;
 
         for(Player p : Bukkit.getOnlinePlayers()) {
             Locale locale = Translate.getLocale(p);
 
-            playerLocale.put(p.getUniqueId(), locale);
+            index.put(p, locale);
             counter.increment(locale);
         }
     }
@@ -44,11 +45,26 @@ class LocaleListener implements Listener {
         e.getCommands().remove(Translate.getPlugin().getName().toLowerCase() + ":" + Translate.COMMAND_NAME);
     }
 
+    @EventHandler(priority = EventPriority.MONITOR)
+    private void onAsyncPlayerPreLogin(@NotNull AsyncPlayerPreLoginEvent e) {
+        if (history == null || e.getLoginResult() != AsyncPlayerPreLoginEvent.Result.ALLOWED) return;
+
+        // Speculatively load the locale the player used last time, the
+        // client's locale is only known after the player has joined.
+        Locale lastLocale = history.get(e.getUniqueId());
+        if (lastLocale != null) Translate.preload(lastLocale);
+    }
+
     @EventHandler
     private void onPlayerLocaleChange(@NotNull PlayerLocaleChangeEvent e) {
         Player p = e.getPlayer();
-        Locale newLocale = Locale.valueOf(e.getLocale());
-        Locale oldLocale = playerLocale.put(p.getUniqueId(), newLocale);
+        Locale newLocale = LocaleResolver.resolve(e.getLocale());
+
+        // Load the locale in the background before anything is translated.
+        Translate.preload(newLocale);
+        if (history != null) history.put(p.getUniqueId(), newLocale);
+
+        Locale oldLocale = index.put(p, newLocale);
 
         counter.increment(newLocale);
 
@@ -66,6 +82,9 @@ class LocaleListener implements Listener {
         // Locale is initialized around to seconds after this event.
         Bukkit.getScheduler().runTaskLater(Translate.getPlugin(), () -> {
             Player p = e.getPlayer();
+            // The quit handler already ran for a player who left meanwhile.
+            if (!p.isOnline()) return;
+
             LocalePlayerJoinEvent event = new LocalePlayerJoinEvent(p);
             Locale locale = event.getLocale();
 
@@ -75,14 +94,15 @@ class LocaleListener implements Listener {
             // is called, if the player's locale isn't 'en_us'.
             if (locale != Locale.en_us) return;
 
-            playerLocale.put(p.getUniqueId(), locale);
+            if (history != null) history.put(p.getUniqueId(), locale);
+            index.put(p, locale);
             counter.increment(locale);
         }, 45L);
     }
 
     @EventHandler
     private void onPlayerQuitEvent(@NotNull PlayerQuitEvent e) {
-        Locale oldLocale = playerLocale.remove(e.getPlayer().getUniqueId());
+        Locale oldLocale = index.remove(e.getPlayer());
 
         counter.decrement(oldLocale);
     }
@@ -0,0 +1,152 @@
+//  Copyright (C) 2022 Unp1xelt. All rights reserved.
+//
+//  This Source Code Form is subject to the terms of the Mozilla Public
+//  License, v. 2.0. If a copy of the MPL was not distributed with this
+//  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+//
+//  This Source Code Form is "Incompatible With Secondary Licenses", as
+//  defined by the Mozilla Public License, v. 2.0.
+
+package de.unpixelt.locale;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.zip.CRC32;
+
+/**
+ * LocaleOverrides reads the translations server owners put into the
+ * {@code lang} folder of the plugin, in example {@code lang/de_de.json}. They
+ * replace the bundled translations of their {@code Locale}.
+ * <p>
+ * An override file is parsed once, its table is written to a snapshot in the
+ * {@code snapshots} folder. Later loads map the snapshot instead of parsing
+ * the file again. A snapshot is keyed by the hash of the plugin's jar and of
+ * its override file, it is rebuilt if one of them changes.
+ *
+ * @see LocaleFormat#writeSnapshot(OutputStream, int, long, String[], Map, int)
+ */
+final class LocaleOverrides {
+
+    static final String DIRECTORY = "lang";
+    static final String SNAPSHOTS = "snapshots";
+
+    private final File directory;
+    private final File snapshots;
+    private final int jar;
+
+    /**
+     * Constructs the overrides of the plugin's folder.
+     *
+     * @param folder The plugin's data folder
+     * @param jar The hash of the plugin's jar
+     */
+    LocaleOverrides(@NotNull File folder, int jar) {
+        this.directory = new File(folder, DIRECTORY);
+        this.snapshots = new File(folder, SNAPSHOTS);
+        this.jar = jar;
+    }
+
+    /**
+     * Returns the overrides of the locale.
+     *
+     * @param locale The locale
+     * @return The snapshot of the locale's override file or {@code null} if
+     *         the locale has none
+     * @throws IOException if the override file can't be read
+     */
+    @Nullable
+    LocaleFormat.Snapshot get(@NotNull Locale locale) throws IOException {
+        File source = new File(directory, locale.name() + LocaleFormat.JSON);
+        if (!source.isFile()) return null;
+
+        byte[] json = Files.readAllBytes(source.toPath());
+        CRC32 crc = new CRC32();
+        crc.update(json);
+        long hash = crc.getValue();
+
+        File file = new File(snapshots, locale.name() + LocaleFormat.BINARY);
+        if (file.isFile()) {
+            try {
+                LocaleFormat.Snapshot snapshot = read(file, hash);
+                if (snapshot != null) return snapshot;
+            } catch (IOException | RuntimeException e) {
+                // A corrupted snapshot is rebuilt like an outdated one.
+            }
+        }
+
+        String[] values = new String[LocaleKeys.size()];
+        Map<String, String> extras = new HashMap<>();
+        try (Reader reader = new InputStreamReader(new ByteArrayInputStream(json), StandardCharsets.UTF_8)) {
+            for (Map.Entry<String, String> entry : LocaleFormat.readJson(reader).entrySet()) {
+                int id = LocaleKeys.id(entry.getKey());
+                if (id < 0) {
+                    extras.put(entry.getKey(), entry.getValue());
+                } else {
+                    values[id] = entry.getValue();
+                }
+            }
+        }
+
+        try {
+            write(file, values, extras, hash);
+            LocaleFormat.Snapshot snapshot = read(file, hash);
+            if (snapshot != null) return snapshot;
+        } catch (IOException e) {
+            Translate.getPlugin().getLogger().log(Level.WARNING, "Unable to write the snapshot of " + source, e);
+        }
+
+        // Without a snapshot the parsed file is used as it is.
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        LocaleFormat.writeSnapshot(out, jar, hash, values, extras, LocaleKeys.hash());
+        return LocaleFormat.readSnapshot(ByteBuffer.wrap(out.toByteArray()), jar, hash, LocaleKeys.hash());
+    }
+
+    private void write(File file, String[] values, Map<String, String> extras, long hash) throws IOException {
+        if (!snapshots.isDirectory() && !snapshots.mkdirs()) {
+            throw new IOException("Unable to create " + snapshots);
+        }
+
+        // Written next to the snapshot and moved, so no other server reads a
+        // half written snapshot.
+        File temp = File.createTempFile(file.getName(), ".tmp", snapshots);
+        try {
+            try (OutputStream out = new FileOutputStream(temp)) {
+                LocaleFormat.writeSnapshot(out, jar, hash, values, extras, LocaleKeys.hash());
+            }
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp.toPath());
+        }
+    }
+
+    /**
+     * Maps the snapshot if it is up to date. The header is checked with a
+     * plain read first, an outdated snapshot is never mapped, so it can be
+     * replaced even on systems that don't replace mapped files.
+     */
+    @Nullable
+    private LocaleFormat.Snapshot read(File file, long hash) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(LocaleFormat.SNAPSHOT_HEADER);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // Reads until the header is complete or the file ends.
+            }
+            header.flip();
+            if (!LocaleFormat.isSnapshot(header, jar, hash, LocaleKeys.hash())) return null;
+
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return LocaleFormat.readSnapshot(buffer, jar, hash, LocaleKeys.hash());
+        }
+    }
+}
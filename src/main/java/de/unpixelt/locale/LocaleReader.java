@@ -9,16 +9,21 @@
 
 package de.unpixelt.locale;
 
-import com.google.gson.Gson;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
-import java.io.BufferedReader;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.nio.charset.StandardCharsets;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * LocalReader is used for loading a {@code Locale} from the resources folder and
@@ -46,86 +51,533 @@ import java.util.*;
  * <p> The values are the translation of the {@code Locale} for the specific
  * object that the key represents.
  *
+ * <p> The values are stored in an array indexed by the id of their key in the
+ * shared dictionary ({@link LocaleKeys}). The compiled language file
+ * ({@link LocaleFormat}) is preferred, the JSON file is only streamed if no
+ * compiled file is available. The values are loaded by section, sections
+ * that a server rarely needs, like {@code gui} or {@code options}, are only
+ * loaded when one of their keys is requested. Translations in the
+ * {@code lang} folder of the plugin replace the bundled ones
+ * ({@link LocaleOverrides}).
+ *
+ * <p> In the off-heap mode all values are loaded at once and kept as UTF-8 in
+ * a {@link Utf8Store} instead, the fallback isn't merged but asked for the
+ * values the locale has none of. With a {@link SharedStore} the values are not
+ * loaded at all, but read from the store shared by all servers of the host.
+ *
  * @see Translate.PotionSort
+ * @see LocaleFormat
+ * @see LocaleKeys
  * @see java.util.Locale
  */
 class LocaleReader {
 
-    private final JsonObject json;
-    private final Locale locale;
+    /** Translations of all readers, so equal translations are kept once. */
+    private static final Interner<String> VALUES = Interners.newWeakInterner();
+
+    private final String path;
+    private String[] values;
+    private final Utf8Store store;
+    private final Map<String, String> extras;
+    /**
+     * The fallback locale, its reader is looked up in the cache whenever it is
+     * needed. A reference to the reader would keep it alive after the cache
+     * cleared it, outside of the memory budget.
+     */
+    private final Locale fallback;
+    /** If the locale or one of its fallbacks has an override file. */
+    private final boolean overridden;
+    /** The path of the fallback if a delta to it can skip its base. */
+    private final String shared;
+    private final LocaleFormat.Values overrides;
+    private final boolean intern;
+    /** The sizes of the translations replaced by equal ones of the fallback or the interner. */
+    private volatile long fallbackBytes;
+    private volatile long internedBytes;
+    private final AtomicIntegerArray loaded = new AtomicIntegerArray(LocaleKeys.sections());
+    private final int weight;
+    private final AtomicReferenceArray<String[]> tables = new AtomicReferenceArray<>(KeyTable.count());
+    private final ConcurrentMap<String, FormatTemplate> templates = new ConcurrentHashMap<>();
+    private volatile CompletableFuture<NameIndex> names;
+    private volatile List<String> keys;
 
     /**
-     * Constructs an LocaleReader for the given locale.
+     * Constructs an LocaleReader for the given locale. Only the sections of
+     * the configured namespaces are loaded, the others are loaded the first
+     * time one of their keys is requested.
      *
      * @param locale The locale used
+     * @throws IOException if the language file can't be read
+     * @see LocaleConfig#isNamespaceLoaded(String)
      */
-    LocaleReader(@NotNull Locale locale) {
-        this.locale = locale;
-        String fileName = locale.name() + ".json";
-        InputStream inputStream = getFileFromResourceAsStream( "lang/" + fileName);
-        InputStreamReader streamReader = new InputStreamReader(inputStream, StandardCharsets.UTF_8);
-        BufferedReader reader = new BufferedReader(streamReader);
-        Gson gson = new Gson();
+    LocaleReader(@NotNull Locale locale) throws IOException {
+        LocaleConfig config = Translate.getLocaleConfig();
+        this.path = LocaleFormat.DIRECTORY + locale.name();
+        this.intern = config.isInternValues();
+
+        LocaleOverrides overrides = Translate.getOverrides();
+        LocaleFormat.Snapshot snapshot = overrides == null ? null : overrides.get(locale);
+        this.fallback = config.getFallback(locale);
+        LocaleReader fallbackReader = fallback == null ? null : Translate.getReader(fallback);
+        this.overridden = snapshot != null || fallbackReader != null && fallbackReader.overridden;
+        // A delta to the fallback only reads its own values, the values it
+        // shares with the fallback are filled in by merge(int) anyway.
+        this.shared = fallbackReader == null || fallbackReader.overridden ? null : fallbackReader.path;
+
+        // The shared store has no overrides, they would be missing from the
+        // fallbacks already merged into it.
+        SharedStore sharedStore = Translate.getSharedStore();
+        if (sharedStore != null && !overridden) {
+            this.store = sharedStore.get(locale, config.getOffHeapCacheSize());
+            this.overrides = null;
+            this.extras = Collections.emptyMap();
+            this.weight = store.getWeight();
+            for (int section = 0; section < LocaleKeys.sections(); section++) loaded.set(section, 1);
+            return;
+        }
+
+        this.values = new String[LocaleKeys.size()];
+        // The store is built once, all sections are loaded for it.
+        boolean[] sections = new boolean[LocaleKeys.sections()];
+        for (int section = 0; section < sections.length; section++) {
+            sections[section] = config.isOffHeap() || config.isNamespaceLoaded(LocaleKeys.namespace(LocaleKeys.key(LocaleKeys.sectionFrom(section))));
+        }
+
+        // Keys that are not in the dictionary are only possible if the
+        // dictionary itself wasn't compiled, they are always loaded.
+        Map<String, String> extras = new HashMap<>();
+        // The sections loaded later are weighed as well, the weight of a
+        // cached reader can't grow.
+        long weight = 16 + 4L * values.length + read(path, values, sections, extras, this.shared);
 
-        this.json = gson.fromJson(reader, JsonObject.class);
+        this.overrides = snapshot == null ? null : snapshot.values;
+        if (snapshot != null) {
+            extras.putAll(snapshot.extras);
+            weight += snapshot.values.weigh();
+        }
+        weight += weigh(extras);
+
+        if (fallbackReader != null) {
+            for (Map.Entry<String, String> entry : fallbackReader.extras.entrySet()) {
+                extras.putIfAbsent(entry.getKey(), entry.getValue());
+            }
+        }
+        this.extras = extras.isEmpty() ? Collections.emptyMap() : extras;
+
+        if (config.isOffHeap()) {
+            // Only the locale's own translations are encoded, missing ones are
+            // read from the fallback's store.
+            if (this.overrides != null) this.overrides.fill(values, 0, values.length);
+            this.store = new Utf8Store(values, config.getOffHeapCacheSize());
+            this.values = null;
+            for (int section = 0; section < sections.length; section++) loaded.set(section, 1);
+            weight = store.getWeight() + weigh(extras);
+        } else {
+            for (int section = 0; section < sections.length; section++) {
+                if (sections[section]) merge(section);
+            }
+            this.store = null;
+        }
+        this.weight = (int) Math.min(weight, Integer.MAX_VALUE);
     }
 
     /**
      * Returns the value with the specific key.
      *
-     * If the key does not exist, first it will check if an English translation
-     * is available if not it returns null.
+     * If the locale has no translation for the key, the translation of its
+     * fallback was already merged when the key's section was loaded. In the
+     * off-heap mode it is read from the fallback instead.
      *
      * @param key Name of the key that is requested.
      * @return Value as {@code String}. If this key does not exist {@code null}
      *         is returned.
      */
     String getValue(@NotNull String key) {
-        JsonElement element = json.get(key);
-        if (element == null) {
-            if (locale == Locale.en_us) {
-                return null;
+        int id = LocaleKeys.id(key);
+        if (id < 0) return extras.get(key);
+
+        return value(id);
+    }
+
+    /**
+     * Returns the value of the key with the id, its section is loaded if
+     * necessary.
+     *
+     * @param id The id of the key
+     * @return The value or {@code null} if the locale has no translation
+     */
+    @Nullable
+    private String value(int id) {
+        if (store != null) {
+            String value = store.get(id);
+            return value != null || fallback == null ? value : fallback().value(id);
+        }
+
+        int section = LocaleKeys.section(id);
+        if (loaded.get(section) == 0) load(section, section + 1);
+        // A fallback with a store is not merged, see merge(int).
+        String value = values[id];
+        if (value != null || fallback == null) return value;
+
+        LocaleReader fallbackReader = fallback();
+        return fallbackReader.store == null ? null : fallbackReader.value(id);
+    }
+
+    /**
+     * Returns the reader of the fallback from the cache, it is loaded again if
+     * the cache cleared it meanwhile.
+     */
+    private LocaleReader fallback() {
+        return Translate.getReader(fallback);
+    }
+
+    /**
+     * Loads every section that isn't loaded yet, so no key has to wait for its
+     * section anymore.
+     *
+     * @throws UncheckedIOException if the language file can't be read
+     */
+    void loadAll() {
+        if (store == null) load(0, LocaleKeys.sections());
+    }
+
+    /**
+     * Loads every section in the range that isn't loaded yet. The language
+     * file is read once for all of them.
+     *
+     * @param from The first section, inclusive
+     * @param to The last section, exclusive
+     * @throws UncheckedIOException if the language file can't be read
+     */
+    private synchronized void load(int from, int to) {
+        boolean[] sections = new boolean[LocaleKeys.sections()];
+        boolean missing = false;
+        for (int section = from; section < to; section++) {
+            sections[section] = loaded.get(section) == 0;
+            missing |= sections[section];
+        }
+        if (!missing) return;
+
+        try {
+            read(path, values, sections, null, shared);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to load " + path, e);
+        }
+        for (int section = from; section < to; section++) {
+            if (sections[section]) merge(section);
+        }
+    }
+
+    /**
+     * Reads all values of a language file, without its overrides and
+     * fallbacks.
+     *
+     * @param path The resource filepath without file extension
+     * @return The values indexed by the id of their key
+     * @throws IOException if the language file can't be read
+     * @see SharedStore
+     */
+    @NotNull
+    static String[] read(@NotNull String path) throws IOException {
+        String[] values = new String[LocaleKeys.size()];
+        boolean[] sections = new boolean[LocaleKeys.sections()];
+        Arrays.fill(sections, true);
+
+        read(path, values, sections, null, null);
+        return values;
+    }
+
+    /**
+     * Reads the values of the sections from the compiled or the JSON file.
+     *
+     * @param path The resource filepath without file extension
+     * @param values The values indexed by the id of their key
+     * @param sections The sections to read
+     * @param extras The map for values of keys that are not in the dictionary,
+     *               {@code null} to skip them
+     * @param shared The path of a locale whose values are merged in later, a
+     *               delta to it only reads its own values
+     * @return The estimated size of the values of all sections read from the
+     *         file, including the sections that weren't requested
+     */
+    private static long read(String path, String[] values, boolean[] sections, @Nullable Map<String, String> extras,
+                             @Nullable String shared) throws IOException {
+        ByteBuffer compiled = LocaleFormat.readCompiled(path);
+
+        if (compiled != null) {
+            LocaleFormat.Values file = LocaleFormat.read(compiled, LocaleKeys.hash());
+            // The bases of the delta up to the shared one, the first base last.
+            Deque<LocaleFormat.Values> bases = new ArrayDeque<>();
+            long weight = file.weigh();
+            for (String base = file.base; base != null && !(LocaleFormat.DIRECTORY + base).equals(shared); ) {
+                if (bases.size() == Locale.values().length) throw new IOException("Bases of " + path + " form a cycle");
+
+                ByteBuffer baseCompiled = LocaleFormat.readCompiled(LocaleFormat.DIRECTORY + base);
+                if (baseCompiled == null) throw new IOException("Base " + base + " of " + path + " is missing");
+
+                LocaleFormat.Values baseValues = LocaleFormat.read(baseCompiled, LocaleKeys.hash());
+                bases.push(baseValues);
+                weight += baseValues.weigh();
+                base = baseValues.base;
             }
 
-            return Translate.getCustomValue(key, Locale.en_us);
+            for (int section = 0; section < sections.length; section++) {
+                if (!sections[section]) continue;
+
+                for (LocaleFormat.Values base : bases) {
+                    base.fill(values, LocaleKeys.sectionFrom(section), LocaleKeys.sectionTo(section));
+                }
+                file.fill(values, LocaleKeys.sectionFrom(section), LocaleKeys.sectionTo(section));
+            }
+            return weight;
         }
-        return element.getAsString();
+
+        // The JSON file is streamed completely anyway, the values of the
+        // other sections are only weighed.
+        Map<String, String> entries = LocaleFormat.readJsonResource(path, key -> extras != null || LocaleKeys.id(key) >= 0);
+        long weight = 0;
+        for (Map.Entry<String, String> entry : entries.entrySet()) {
+            int id = LocaleKeys.id(entry.getKey());
+            if (id < 0) {
+                extras.put(entry.getKey(), entry.getValue());
+            } else {
+                weight += weigh(entry.getValue());
+                if (sections[LocaleKeys.section(id)]) values[id] = entry.getValue();
+            }
+        }
+        return weight;
+    }
+
+    /**
+     * Replaces the translations of the section with the overrides, fills every
+     * missing translation with the translation of the fallback and marks the
+     * section as loaded. The fallback's chain is already merged, so its values
+     * are shared as they are, as well as translations equal to them. Other
+     * translations are interned if {@link LocaleConfig#isInternValues()}.
+     * <p>
+     * A fallback whose values are kept in a {@link Utf8Store} is not merged,
+     * that would decode all of them and replace its whole cache. Missing
+     * translations are read from it by {@link #value(int)} instead.
+     *
+     * @param section The section
+     */
+    private void merge(int section) {
+        int from = LocaleKeys.sectionFrom(section);
+        int to = LocaleKeys.sectionTo(section);
+
+        if (overrides != null) overrides.fill(values, from, to);
+
+        LocaleReader fallbackReader = fallback == null ? null : fallback();
+        boolean merged = fallbackReader != null && fallbackReader.store == null;
+        long fallbackBytes = 0;
+        long internedBytes = 0;
+        for (int id = from; id < to; id++) {
+            String value = values[id];
+            String fallbackValue = merged ? fallbackReader.value(id) : null;
+
+            if (value == null || value.equals(fallbackValue)) {
+                if (value != null) fallbackBytes += bytes(value);
+                values[id] = fallbackValue;
+            } else if (intern) {
+                values[id] = VALUES.intern(value);
+                if (values[id] != value) internedBytes += bytes(value);
+            }
+        }
+        this.fallbackBytes += fallbackBytes;
+        this.internedBytes += internedBytes;
+        loaded.set(section, 1);
+    }
+
+    /**
+     * Returns the compiled template of the key's value. The template is
+     * compiled the first time it is used and kept as long as the reader.
+     *
+     * @param key Name of the key that is requested.
+     * @return Template of the value or {@code null} if this key does not
+     *         exist
+     */
+    @Nullable
+    FormatTemplate getTemplate(@NotNull String key) {
+        FormatTemplate template = templates.get(key);
+        if (template != null) return template;
+
+        String value = getValue(key);
+        if (value == null) return null;
+
+        template = FormatTemplate.compile(value);
+        FormatTemplate previous = templates.putIfAbsent(key, template);
+        return previous != null ? previous : template;
+    }
+
+    /**
+     * Returns the index of the translated names. The index is built on the
+     * executor the first time it is requested and kept as long as the reader.
+     *
+     * @param executor The executor that builds the index
+     * @return A future completed with the {@link NameIndex}
+     */
+    @NotNull
+    CompletableFuture<NameIndex> getNames(@NotNull Executor executor) {
+        CompletableFuture<NameIndex> names = this.names;
+        if (names != null) return names;
+
+        synchronized (this) {
+            if (this.names == null) {
+                this.names = CompletableFuture.supplyAsync(() -> new NameIndex(this), executor);
+            }
+            return this.names;
+        }
+    }
+
+    /**
+     * Returns the estimated amount of bytes the loaded translations saved,
+     * because they are equal to the translation of the fallback and share it.
+     * The amount is counted when a section is merged and never reduced.
+     *
+     * @return The estimated size of the shared translations in bytes
+     */
+    long getFallbackBytes() {
+        return fallbackBytes;
+    }
+
+    /**
+     * Returns the estimated amount of bytes the loaded translations saved,
+     * because an equal translation was interned before. The amount is counted
+     * when a section is merged and never reduced.
+     *
+     * @return The estimated size of the interned translations in bytes
+     * @see LocaleConfig#isInternValues()
+     */
+    long getInternedBytes() {
+        return internedBytes;
+    }
+
+    /**
+     * Returns the estimated amount of bytes this reader occupies on the heap.
+     * The translations of every section are counted, even if they aren't
+     * loaded yet. Translations shared with the fallback are not counted, they
+     * belong to the fallback's reader.
+     *
+     * @return The estimated size in bytes
+     */
+    int getWeight() {
+        return weight;
+    }
+
+    /**
+     * Estimates the size of a translation. A {@code String} is counted with
+     * its object and array headers and two bytes per char.
+     */
+    private static long weigh(String value) {
+        return 40 + 2L * value.length();
+    }
+
+    /**
+     * Estimates the size of a translation like the runtime stores it, with one
+     * byte per char if all chars are Latin-1 and two bytes otherwise.
+     */
+    private static long bytes(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > 0xFF) return 40 + 2L * value.length();
+        }
+        return 40 + value.length();
+    }
+
+    /**
+     * Estimates the size of the translations of keys that are not in the
+     * dictionary, with their keys.
+     */
+    private static long weigh(Map<String, String> extras) {
+        long weight = 0;
+        for (Map.Entry<String, String> entry : extras.entrySet()) {
+            weight += weigh(entry.getKey()) + weigh(entry.getValue());
+        }
+        return weight;
+    }
+
+    /**
+     * Returns the translation of a constant of the key table.
+     * <br>
+     * The table is resolved the first time it is used, after that this is a
+     * single array read.
+     *
+     * @param table The key table of the constant's type
+     * @param index The index of the constant in the key table
+     * @return Translation of the constant or {@code null} if the constant has
+     *         no key
+     */
+    @Nullable
+    String translate(@NotNull KeyTable table, int index) {
+        // Resolved tables would hold their values on the heap again.
+        if (store != null) return index < 0 ? null : getValue(table.key(index));
+
+        String[] values = tables.get(table.ordinal);
+        if (values == null) {
+            values = table.resolve(this);
+            tables.set(table.ordinal, values);
+        }
+        return index < 0 ? null : values[index];
     }
 
     /**
      * Returns all keys for the locale.
+     * <br>
+     * If the locale has a translation for every key of the dictionary, which
+     * is the usual case after the fallback is merged, the view of the
+     * dictionary is shared. Otherwise the list is built once.
      *
      * @return An unmodifiable {@code List} containing all keys for this locale
      * @see Collections#unmodifiableList(List)
      */
     List<String> getKeys() {
-        List<String> keys = new ArrayList<>();
+        List<String> keys = this.keys;
+        if (keys != null) return keys;
 
-        for(Map.Entry<String, JsonElement> entry : json.entrySet()) {
-            keys.add(entry.getKey());
+        load(0, LocaleKeys.sections());
+        int missing = 0;
+        for (int id = 0; id < LocaleKeys.size(); id++) {
+            if (value(id) == null) missing++;
         }
-        return Collections.unmodifiableList(keys);
+
+        if (missing == 0 && extras.isEmpty()) {
+            keys = LocaleKeys.all();
+        } else {
+            List<String> list = new ArrayList<>(LocaleKeys.size() - missing + extras.size());
+            for (int id = 0; id < LocaleKeys.size(); id++) {
+                if (value(id) != null) list.add(LocaleKeys.key(id));
+            }
+            list.addAll(extras.keySet());
+            keys = Collections.unmodifiableList(list);
+        }
+        this.keys = keys;
+        return keys;
     }
 
     /**
-     * Returns an {@code InputStream} from the resource.
+     * Returns the keys starting with the prefix and their translations,
+     * without copying them.
      *
-     * @param path The resource filepath
-     * @return {@link InputStream} from the resource file
-     * @throws IllegalArgumentException If this path to the resource does not
-     *         exist
+     * @param prefix The prefix of the keys, in example {@code block.minecraft.}
+     * @return An unmodifiable view of the keys and translations, the
+     *         translation is {@code null} if the locale has none
      */
     @NotNull
-    private InputStream getFileFromResourceAsStream(String path) {
-        // The class loader that loaded the class
-        ClassLoader classLoader = getClass().getClassLoader();
-        InputStream inputStream = classLoader.getResourceAsStream(path);
-
-        // The stream holding the file content
-        if (inputStream == null) {
-            throw new IllegalArgumentException("Filepath not found! " + path);
-        } else {
-            return inputStream;
-        }
+    List<Map.Entry<String, String>> getEntries(@NotNull String prefix) {
+        int from = LocaleKeys.from(prefix);
+        int to = LocaleKeys.to(prefix, from);
+        if (from < to && store == null) load(LocaleKeys.section(from), LocaleKeys.section(to - 1) + 1);
+
+        return new AbstractList<Map.Entry<String, String>>() {
+            @Override
+            public Map.Entry<String, String> get(int index) {
+                if (index < 0 || index >= size()) throw new IndexOutOfBoundsException("Index: " + index);
+                return new AbstractMap.SimpleImmutableEntry<>(LocaleKeys.key(from + index), value(from + index));
+            }
+
+            @Override
+            public int size() {
+                return to - from;
+            }
+        };
     }
 }
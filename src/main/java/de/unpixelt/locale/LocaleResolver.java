@@ -0,0 +1,94 @@
+//  Copyright (C) 2022 Unp1xelt. All rights reserved.
+//
+//  This Source Code Form is subject to the terms of the Mozilla Public
+//  License, v. 2.0. If a copy of the MPL was not distributed with this
+//  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+//
+//  This Source Code Form is "Incompatible With Secondary Licenses", as
+//  defined by the Mozilla Public License, v. 2.0.
+
+package de.unpixelt.locale;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * LocaleResolver maps the locale code of a client to a {@code Locale} without
+ * throwing. Codes are looked up in a table of every {@code Locale}, unknown
+ * codes are normalized and resolved by their language, in example
+ * {@code de_lu} to {@link Locale#de_de}. Codes without any match resolve to the
+ * configured default.
+ *
+ * @see LocaleConfig#getDefaultLocale()
+ */
+final class LocaleResolver {
+
+    /** Limits the remembered unknown codes, clients can send any code. */
+    private static final int MAX_UNKNOWN = 64;
+
+    private static final Map<String, Locale> CODES = new HashMap<>();
+    private static final Map<String, Locale> LANGUAGES = new HashMap<>();
+    private static final Map<String, Locale> UNKNOWN = new ConcurrentHashMap<>();
+
+    static {
+        for (Locale locale : Locale.values()) {
+            CODES.put(locale.name(), locale);
+            LANGUAGES.merge(language(locale.name()), locale, LocaleResolver::preferred);
+        }
+    }
+
+    private LocaleResolver() {}
+
+    /**
+     * Returns the {@code Locale} of the client's locale code.
+     *
+     * @param code The locale code, in example {@code en_us}
+     * @return {@link Locale} of the code, its language or the default locale
+     */
+    @NotNull
+    static Locale resolve(@Nullable String code) {
+        if (code == null) return Translate.getLocaleConfig().getDefaultLocale();
+
+        Locale locale = CODES.get(code);
+        if (locale != null) return locale;
+
+        locale = UNKNOWN.get(code);
+        if (locale != null) return locale;
+
+        String normalized = code.trim().toLowerCase(java.util.Locale.ROOT).replace('-', '_');
+        locale = CODES.get(normalized);
+        if (locale == null) locale = LANGUAGES.get(language(normalized));
+        if (locale == null) locale = Translate.getLocaleConfig().getDefaultLocale();
+
+        if (UNKNOWN.size() < MAX_UNKNOWN) UNKNOWN.put(code, locale);
+        return locale;
+    }
+
+    /**
+     * Forgets the resolved unknown codes, in example after the default locale
+     * has changed.
+     */
+    static void clear() {
+        UNKNOWN.clear();
+    }
+
+    private static String language(String code) {
+        int index = code.indexOf('_');
+        return index < 0 ? code : code.substring(0, index);
+    }
+
+    /**
+     * Prefers the main region of a language, like {@code de_de}, then
+     * {@code _us} and else the first {@code Locale} of the language.
+     */
+    private static Locale preferred(Locale first, Locale second) {
+        String language = language(first.name());
+        if (second.name().equals(language + "_" + language)) return second;
+        if (first.name().equals(language + "_" + language)) return first;
+        return second.name().equals(language + "_us") ? second : first;
+    }
+}
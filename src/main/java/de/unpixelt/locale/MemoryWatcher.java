@@ -0,0 +1,85 @@
+//  Copyright (C) 2022 Unp1xelt. All rights reserved.
+//
+//  This Source Code Form is subject to the terms of the Mozilla Public
+//  License, v. 2.0. If a copy of the MPL was not distributed with this
+//  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+//
+//  This Source Code Form is "Incompatible With Secondary Licenses", as
+//  defined by the Mozilla Public License, v. 2.0.
+
+package de.unpixelt.locale;
+
+import org.jetbrains.annotations.NotNull;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryNotificationInfo;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * MemoryWatcher notifies when a heap pool is still filled above a threshold
+ * after a garbage collection. Only pools that support a collection usage
+ * threshold are watched, usually the old generation.
+ * <p>
+ * The thresholds are global to the JVM, their previous values are restored
+ * when the watcher is closed.
+ *
+ * @see MemoryPoolMXBean#setCollectionUsageThreshold(long)
+ * @see LocaleConfig#getMemoryThreshold()
+ */
+final class MemoryWatcher implements NotificationListener {
+
+    private final NotificationEmitter emitter = (NotificationEmitter) ManagementFactory.getMemoryMXBean();
+    private final Runnable action;
+    private final Map<MemoryPoolMXBean, Long> previous = new HashMap<>();
+
+    /**
+     * Constructs the watcher and sets the threshold of every heap pool.
+     *
+     * @param threshold The fraction of a pool's maximum size
+     * @param action Runs on a JMX thread when the threshold is exceeded
+     */
+    MemoryWatcher(double threshold, @NotNull Runnable action) {
+        this.action = action;
+
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() != MemoryType.HEAP || !pool.isCollectionUsageThresholdSupported()) continue;
+
+            long max = pool.getUsage().getMax();
+            if (max <= 0) continue;
+
+            previous.put(pool, pool.getCollectionUsageThreshold());
+            pool.setCollectionUsageThreshold((long) (max * threshold));
+        }
+        emitter.addNotificationListener(this, null, null);
+    }
+
+    @Override
+    public void handleNotification(Notification notification, Object handback) {
+        if (MemoryNotificationInfo.MEMORY_COLLECTION_THRESHOLD_EXCEEDED.equals(notification.getType())) {
+            action.run();
+        }
+    }
+
+    /**
+     * Stops watching the heap and restores the previous thresholds.
+     */
+    void close() {
+        try {
+            emitter.removeNotificationListener(this);
+        } catch (ListenerNotFoundException ignored) {
+            // Already removed.
+        }
+
+        for (Map.Entry<MemoryPoolMXBean, Long> entry : previous.entrySet()) {
+            entry.getKey().setCollectionUsageThreshold(entry.getValue());
+        }
+        previous.clear();
+    }
+}
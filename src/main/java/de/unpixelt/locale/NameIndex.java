@@ -0,0 +1,262 @@
+//  Copyright (C) 2022 Unp1xelt. All rights reserved.
+//
+//  This Source Code Form is subject to the terms of the Mozilla Public
+//  License, v. 2.0. If a copy of the MPL was not distributed with this
+//  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+//
+//  This Source Code Form is "Incompatible With Secondary Licenses", as
+//  defined by the Mozilla Public License, v. 2.0.
+
+package de.unpixelt.locale;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.text.Normalizer;
+import java.util.*;
+
+/**
+ * NameIndex maps the translations of a {@code Locale} back to their keys, in
+ * example {@code "Stein"} to {@code block.minecraft.stone}. Names are compared
+ * case and accent insensitive, so {@code "eclair"} finds {@code "Éclair"}.
+ * <br>
+ * Only the translations of the {@link #NAMESPACES} are indexed. Keys with the
+ * same translation, like the entity and the item of an armor stand, are kept
+ * in the order of the dictionary.
+ * <p>
+ * For tab completion the names are also kept sorted, so a prefix is found by
+ * binary search, and indexed by their trigrams for typo tolerant search.
+ *
+ * @see LocaleReader#getNames(java.util.concurrent.Executor)
+ */
+final class NameIndex {
+
+    /** Prefixes of the keys whose translations are names of game objects. */
+    static final String[] NAMESPACES = {
+            "biome.minecraft.",
+            "block.minecraft.",
+            "effect.minecraft.",
+            "enchantment.minecraft.",
+            "entity.minecraft.",
+            "item.minecraft."
+    };
+
+    private static final String[] NONE = new String[0];
+    private static final int GRAM = 3;
+    /** The least similarity of a name found by {@link #search(String, int)}. */
+    private static final double MIN_SIMILARITY = 0.3;
+
+    private final Map<String, String[]> keys = new HashMap<>();
+    /** The normalized names in ascending order. */
+    private final String[] names;
+    /** The translations of {@link #names}. */
+    private final String[] translations;
+    /** The indices of the names containing a trigram. */
+    private final Map<String, int[]> grams = new HashMap<>();
+    /** The amount of distinct trigrams of every name. */
+    private final int[] gramCounts;
+    /**
+     * The amount of trigrams every name shares with the query, reused by the
+     * searches of a thread and reset to zeros after every search.
+     */
+    private final ThreadLocal<int[]> shared;
+
+    /**
+     * Constructs the index of the reader's translations.
+     *
+     * @param reader The reader of the locale
+     */
+    NameIndex(@NotNull LocaleReader reader) {
+        for (int id = 0; id < LocaleKeys.size(); id++) {
+            String key = LocaleKeys.key(id);
+            if (!isName(key)) continue;
+
+            String value = reader.getValue(key);
+            if (value != null) keys.merge(normalize(value), new String[] {key}, NameIndex::concat);
+        }
+
+        names = keys.keySet().toArray(new String[0]);
+        Arrays.sort(names);
+        translations = new String[names.length];
+        gramCounts = new int[names.length];
+
+        Map<String, List<Integer>> postings = new HashMap<>();
+        for (int i = 0; i < names.length; i++) {
+            translations[i] = reader.getValue(keys.get(names[i])[0]);
+
+            Set<String> nameGrams = grams(names[i]);
+            gramCounts[i] = nameGrams.size();
+            for (String gram : nameGrams) {
+                postings.computeIfAbsent(gram, g -> new ArrayList<>()).add(i);
+            }
+        }
+        for (Map.Entry<String, List<Integer>> entry : postings.entrySet()) {
+            int[] indices = new int[entry.getValue().size()];
+            for (int i = 0; i < indices.length; i++) indices[i] = entry.getValue().get(i);
+            grams.put(entry.getKey(), indices);
+        }
+        shared = ThreadLocal.withInitial(() -> new int[names.length]);
+    }
+
+    /**
+     * Returns the translated names starting with the prefix, in alphabetical
+     * order.
+     *
+     * @param prefix The start of the name
+     * @param limit The maximum amount of names
+     * @return The translated names
+     */
+    @NotNull
+    List<String> complete(@NotNull String prefix, int limit) {
+        if (limit <= 0) return Collections.emptyList();
+
+        String normalized = normalize(prefix);
+        int index = Arrays.binarySearch(names, normalized);
+        if (index < 0) index = -index - 1;
+
+        List<String> result = new ArrayList<>(Math.min(limit, 16));
+        for (; index < names.length && result.size() < limit; index++) {
+            if (!names[index].startsWith(normalized)) break;
+            result.add(translations[index]);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the translated names similar to the query, the most similar
+     * first. The similarity is the Dice coefficient of the trigrams of the
+     * names, so a few typos still match.
+     *
+     * @param query The misspelled name
+     * @param limit The maximum amount of names
+     * @return The translated names
+     */
+    @NotNull
+    List<String> search(@NotNull String query, int limit) {
+        if (limit <= 0) return Collections.emptyList();
+
+        Set<String> queryGrams = grams(normalize(query));
+        int[] shared = this.shared.get();
+        int[] touched = new int[16];
+        int touchedCount = 0;
+
+        for (String gram : queryGrams) {
+            int[] indices = grams.get(gram);
+            if (indices == null) continue;
+
+            for (int index : indices) {
+                if (shared[index]++ != 0) continue;
+                if (touchedCount == touched.length) touched = Arrays.copyOf(touched, touchedCount * 2);
+                touched[touchedCount++] = index;
+            }
+        }
+
+        // The similarity is a positive float, whose bits sort like its value.
+        // Packed above the inverted index, the most similar names come last
+        // and equally similar names in alphabetical order.
+        long[] matches = new long[touchedCount];
+        int matchCount = 0;
+        for (int t = 0; t < touchedCount; t++) {
+            int i = touched[t];
+            float similarity = 2f * shared[i] / (queryGrams.size() + gramCounts[i]);
+            shared[i] = 0;
+            if (similarity >= MIN_SIMILARITY) {
+                matches[matchCount++] = (long) Float.floatToIntBits(similarity) << 32 | (Integer.MAX_VALUE - i);
+            }
+        }
+        Arrays.sort(matches, 0, matchCount);
+
+        List<String> result = new ArrayList<>(Math.min(limit, matchCount));
+        for (int m = matchCount - 1; m >= 0 && result.size() < limit; m--) {
+            result.add(translations[Integer.MAX_VALUE - (int) matches[m]]);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the keys whose translation is the name.
+     *
+     * @param name The translated name
+     * @return The keys, empty if no translation matches
+     */
+    @NotNull
+    String[] getKeys(@NotNull String name) {
+        return keys.getOrDefault(normalize(name), NONE);
+    }
+
+    /**
+     * Returns the constant of the table whose translation is the name.
+     *
+     * @param table The key table of the constant's type
+     * @param name The translated name
+     * @return The constant or {@code null} if no translation matches
+     */
+    @Nullable
+    Object getConstant(@NotNull KeyTable table, @NotNull String name) {
+        for (String key : getKeys(name)) {
+            Object constant = table.constantOf(key);
+            if (constant != null) return constant;
+        }
+        return null;
+    }
+
+    /**
+     * Returns the distinct trigrams of the name, padded with a space at the
+     * start and end so short names and word starts count as well.
+     */
+    private static Set<String> grams(String name) {
+        String padded = " " + name + " ";
+        Set<String> grams = new HashSet<>();
+
+        for (int i = 0; i + GRAM <= padded.length(); i++) {
+            grams.add(padded.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    private static String[] concat(String[] first, String[] second) {
+        String[] keys = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, keys, first.length, second.length);
+        return keys;
+    }
+
+    /**
+     * Returns if the key's translation is the name of a game object.
+     *
+     * @param key The key
+     * @return {@code true} if the key is in one of the {@link #NAMESPACES}
+     */
+    static boolean isName(@NotNull String key) {
+        for (String namespace : NAMESPACES) {
+            if (key.startsWith(namespace)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Removes accents, case and surrounding or repeated whitespace.
+     *
+     * @param name The name
+     * @return The normalized name
+     */
+    @NotNull
+    static String normalize(@NotNull String name) {
+        String decomposed = Normalizer.normalize(name, Normalizer.Form.NFD);
+        StringBuilder builder = new StringBuilder(decomposed.length());
+        boolean space = false;
+
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) continue;
+
+            if (Character.isWhitespace(c)) {
+                space = builder.length() > 0;
+                continue;
+            }
+            if (space) builder.append(' ');
+            space = false;
+            builder.append(Character.toLowerCase(c));
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,243 @@
+//  Copyright (C) 2022 Unp1xelt. All rights reserved.
+//
+//  This Source Code Form is subject to the terms of the Mozilla Public
+//  License, v. 2.0. If a copy of the MPL was not distributed with this
+//  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+//
+//  This Source Code Form is "Incompatible With Secondary Licenses", as
+//  defined by the Mozilla Public License, v. 2.0.
+
+package de.unpixelt.locale;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * SharedStore is one file with the values of every {@code Locale}, which all
+ * servers of a host map read-only. The operating system keeps one copy of the
+ * file in its page cache, no matter how many servers use it.
+ * <p>
+ * The values of a locale are stored with the values of its fallbacks already
+ * merged, as a table of a {@link Utf8Store}. Translations of the {@code lang}
+ * folder are specific to a server, a locale with an override file in its
+ * chain of fallbacks is loaded by its {@link LocaleReader} as usual.
+ * <p>
+ * The file starts with the {@link LocaleFormat#MAGIC} number and format
+ * {@link LocaleFormat#VERSION}, the {@link Utf8Store#VERSION} of the tables,
+ * the hashes of the plugin version, the dictionary and the fallbacks, the
+ * amount of locales and the start of the table of every locale in the order of
+ * {@link Locale#values()}. The file name consists of the plugin version and
+ * the hash of the header, so servers of different plugin versions or
+ * configurations use different files side by side. Copies of the same jar use
+ * the same file.
+ * <p>
+ * The first server of a version builds the file while holding a file lock,
+ * the others wait for it and map the finished file. Once it is written, the
+ * files of other versions or configurations are deleted. The tables are written
+ * one after another, the values of a locale are only kept until the locales
+ * that fall back to it are merged.
+ *
+ * @see LocaleConfig#getSharedStore()
+ */
+final class SharedStore {
+
+    static final String PREFIX = "locale-api-";
+
+    private final ByteBuffer buffer;
+    private final int[] starts;
+
+    private SharedStore(ByteBuffer buffer, int[] starts) {
+        this.buffer = buffer;
+        this.starts = starts;
+    }
+
+    /**
+     * Maps the shared store of the directory, it is built first if it doesn't
+     * exist yet or is outdated.
+     *
+     * @param directory The directory shared by the servers
+     * @param version The version of the plugin
+     * @param config The configuration of the fallbacks
+     * @return The shared store
+     * @throws IOException if the store can't be built or mapped
+     */
+    @NotNull
+    static SharedStore open(@NotNull File directory, @NotNull String version, @NotNull LocaleConfig config)
+            throws IOException {
+        if (LocaleFormat.readCompiled(LocaleFormat.DIRECTORY + LocaleKeys.FILE) == null) {
+            throw new IOException("The shared store needs the compiled language files");
+        }
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Unable to create " + directory);
+        }
+
+        int[] header = {LocaleFormat.VERSION, Utf8Store.VERSION, version.hashCode(), LocaleKeys.hash(),
+                config.getFallbackHash()};
+        File file = new File(directory, PREFIX + version.replaceAll("[^A-Za-z0-9._-]", "_") + "-"
+                + Integer.toHexString(Arrays.hashCode(header)) + LocaleFormat.BINARY);
+        File lock = lock(file);
+
+        try (FileChannel channel = FileChannel.open(lock.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+             FileLock ignored = channel.lock()) {
+            SharedStore store = read(file, header);
+            if (store != null) return store;
+
+            write(file, header, config);
+            store = read(file, header);
+            if (store == null) throw new IOException("Shared store " + file + " is outdated right after writing it");
+            deleteOthers(file);
+            return store;
+        }
+    }
+
+    /**
+     * Returns a view of the locale's table.
+     *
+     * @param locale The locale
+     * @param cacheSize The amount of decoded values kept on the heap
+     * @return The values of the locale and its fallbacks
+     * @throws IOException if the table is corrupted
+     */
+    @NotNull
+    Utf8Store get(@NotNull Locale locale, int cacheSize) throws IOException {
+        ByteBuffer table = buffer.duplicate();
+        table.position(starts[locale.ordinal()]);
+        return new Utf8Store(table, cacheSize);
+    }
+
+    @Nullable
+    private static SharedStore read(File file, int[] header) throws IOException {
+        if (!file.isFile()) return null;
+
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        if (buffer.remaining() < (header.length + 2) * Integer.BYTES || buffer.getInt() != LocaleFormat.MAGIC) {
+            return null;
+        }
+        for (int hash : header) {
+            if (buffer.getInt() != hash) return null;
+        }
+
+        int[] starts = new int[buffer.getInt()];
+        if (starts.length != Locale.values().length) return null;
+        buffer.asIntBuffer().get(starts);
+        return new SharedStore(buffer, starts);
+    }
+
+    /**
+     * Deletes the stores of other versions or configurations and their lock
+     * files. A store is skipped while another server holds its lock, as it is
+     * being built or opened right now, or if the system doesn't delete a file
+     * that is still mapped by a running server.
+     */
+    private static void deleteOthers(File file) {
+        File[] stores = file.getParentFile().listFiles((directory, name) -> name.startsWith(PREFIX)
+                && name.endsWith(LocaleFormat.BINARY) && !name.equals(file.getName()));
+        if (stores == null) return;
+
+        for (File store : stores) {
+            File lock = lock(store);
+            try (FileChannel channel = FileChannel.open(lock.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                 FileLock held = channel.tryLock()) {
+                if (held == null) continue;
+
+                Files.deleteIfExists(store.toPath());
+                Files.deleteIfExists(lock.toPath());
+            } catch (IOException | OverlappingFileLockException ignored) {
+                // Tried again once the next store is written.
+            }
+        }
+    }
+
+    private static File lock(File file) {
+        return new File(file.getParentFile(), file.getName() + ".lock");
+    }
+
+    private static void write(File file, int[] header, LocaleConfig config) throws IOException {
+        Locale[] locales = Locale.values();
+        String[][] merged = new String[locales.length][];
+        boolean[] written = new boolean[locales.length];
+        int[] dependents = new int[locales.length];
+        for (Locale locale : locales) {
+            Locale fallback = config.getFallback(locale);
+            if (fallback != null) dependents[fallback.ordinal()]++;
+        }
+
+        int[] starts = new int[locales.length];
+        int headerLength = (header.length + 2 + locales.length) * Integer.BYTES;
+
+        // Written next to the store and moved, so no server maps a half
+        // written store.
+        File temp = File.createTempFile(file.getName(), ".tmp", file.getParentFile());
+        try {
+            try (FileChannel channel = FileChannel.open(temp.toPath(), StandardOpenOption.WRITE)) {
+                // The tables are streamed behind the header, which is written
+                // last once their starts are known.
+                channel.position(headerLength);
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+                for (Locale locale : locales) {
+                    starts[locale.ordinal()] = headerLength + out.size();
+                    Utf8Store.write(out, merge(locale, merged, dependents, written, config));
+
+                    written[locale.ordinal()] = true;
+                    if (dependents[locale.ordinal()] == 0) merged[locale.ordinal()] = null;
+                }
+                out.flush();
+
+                ByteBuffer buffer = ByteBuffer.allocate(headerLength);
+                buffer.putInt(LocaleFormat.MAGIC);
+                for (int hash : header) {
+                    buffer.putInt(hash);
+                }
+                buffer.putInt(locales.length);
+                for (int start : starts) {
+                    buffer.putInt(start);
+                }
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer, buffer.position());
+                }
+            }
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp.toPath());
+        }
+    }
+
+    /**
+     * Returns the values of the locale with the values of its fallbacks
+     * filled in, every locale is read once. The values of a fallback are
+     * dropped once it is written and no other locale depends on them.
+     */
+    private static String[] merge(Locale locale, String[][] merged, int[] dependents, boolean[] written,
+                                  LocaleConfig config) throws IOException {
+        if (merged[locale.ordinal()] != null) return merged[locale.ordinal()];
+
+        String[] values = LocaleReader.read(LocaleFormat.DIRECTORY + locale.name());
+        Locale fallback = config.getFallback(locale);
+        if (fallback != null) {
+            String[] fallbackValues = merge(fallback, merged, dependents, written, config);
+            for (int id = 0; id < values.length; id++) {
+                if (values[id] == null) values[id] = fallbackValues[id];
+            }
+            if (--dependents[fallback.ordinal()] == 0 && written[fallback.ordinal()]) {
+                merged[fallback.ordinal()] = null;
+            }
+        }
+        return merged[locale.ordinal()] = values;
+    }
+}
@@ -10,8 +10,8 @@
 package de.unpixelt.locale;
 
 import com.google.common.base.Preconditions;
-import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.LoadingCache;
+import net.md_5.bungee.api.chat.BaseComponent;
+import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.block.Biome;
 import org.bukkit.enchantments.Enchantment;
@@ -25,8 +25,19 @@ import org.bukkit.potion.PotionEffectType;
 import org.bukkit.potion.PotionType;
 import org.jetbrains.annotations.*;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.logging.Level;
 
 /**
  * With {@code Translate} you can translate
@@ -45,18 +56,35 @@ import java.util.concurrent.TimeUnit;
  * When a translation is requested the specific {@code Locale} is cached for two
  * minutes. If in that two minutes no further requests are taken it will be
  * automatically cleared from the cache. It will also be cleared from the cache
- * if no players are using this {@code Locale} in example if a player is leaving
- * or changing his {@code Locale}.
+ * if no players are using this {@code Locale} for a short time, in example if a
+ * player is leaving or changing his {@code Locale}. The durations, a memory
+ * budget and locales that are never cleared can be set in the {@code cache}
+ * section of the {@code config.yml}.
+ * <p>
+ * Loading a {@code Locale} blocks the first translation. Use
+ * {@link Translate#preload(Locale)} to load it in the background beforehand or
+ * enable {@code loading.non-blocking} in the {@code config.yml}.
+ * <p>
+ * Every method of {@code Translate} can be called from any thread, in example
+ * from async chat or packet listeners. Translating a loaded {@code Locale}
+ * reads immutable tables and never waits for a lock.
  */
 public final class Translate extends JavaPlugin {
 
-    private static final LoadingCache<Locale, LocaleReader> CACHE =
-            CacheBuilder.newBuilder().expireAfterAccess(2, TimeUnit.MINUTES).build(new LocaleCacheLoader());
     private static final Debugger DEBUGGER = new Debugger();
 
     private static Plugin plugin;
+    private static volatile LocaleConfig config = new LocaleConfig();
+    private static volatile LocaleCache cache = new LocaleCache(config);
+    private static volatile LocaleIndex index = new LocaleIndex();
+    private static volatile LocaleOverrides overrides;
+    private static volatile SharedStore sharedStore;
+    private static LocaleHistory history;
+    private static MemoryWatcher memoryWatcher;
 
     static final String COMMAND_NAME = "usedlocales";
+    private static final long HISTORY_SAVE_PERIOD = 20L * 60 * 5;
+    private static final long SWEEP_PERIOD = 20L;
 
     /**
      * {@inheritDoc}
@@ -65,13 +93,93 @@ public final class Translate extends JavaPlugin {
     public void onEnable() {
         plugin = this;
 
-        final LocaleCounter counter = new LocaleCounter(CACHE);
+        saveDefaultConfig();
+        config = new LocaleConfig(getConfig(), getLogger());
+        LocaleResolver.clear();
+        int jar = Objects.hash(getDescription().getVersion(), getFile().length(), getFile().lastModified());
+        overrides = new LocaleOverrides(getDataFolder(), jar);
+        new File(getDataFolder(), LocaleOverrides.DIRECTORY).mkdirs();
+        sharedStore = null;
+        cache.shutdown();
+        cache = new LocaleCache(config);
+        CompletableFuture<Void> opened = openSharedStore(getDescription().getVersion());
+        // Served while other locales load, it is never parsed on a later request.
+        cache.loadFallback();
+        // Warmed up locales are pinned, so they are read from the shared store.
+        if (config.isWarmUp()) opened.thenRun(() -> warmUp(config.getWarmUpLocales()));
+
+        final LocaleCounter counter = new LocaleCounter(cache, config);
         final UsedLocalesCommand command = new UsedLocalesCommand(counter);
 
-        getServer().getPluginManager().registerEvents(new LocaleListener(counter), this);
+        getServer().getScheduler().runTaskTimer(this, counter::sweep, SWEEP_PERIOD, SWEEP_PERIOD);
+
+        if (config.getMemoryThreshold() > 0) {
+            // The notification arrives on a JMX thread, the counter belongs to the main thread.
+            memoryWatcher = new MemoryWatcher(config.getMemoryThreshold(), () -> getServer().getScheduler()
+                    .runTask(this, () -> DEBUGGER.shedFromCache(cache.shed(counter::isUsed))));
+        }
+
+        if (config.isRememberLocales()) {
+            history = new LocaleHistory(new File(getDataFolder(), LocaleHistory.FILE_NAME));
+            getServer().getScheduler().runTaskTimerAsynchronously(this, history::save,
+                    HISTORY_SAVE_PERIOD, HISTORY_SAVE_PERIOD);
+        }
+
+        index = new LocaleIndex();
+        getServer().getPluginManager().registerEvents(new LocaleListener(index, counter, history), this);
         getCommand(COMMAND_NAME).setExecutor(command);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onDisable() {
+        if (memoryWatcher != null) memoryWatcher.close();
+        if (history != null) history.save();
+        cache.shutdown();
+    }
+
+    /**
+     * Opens the shared store on a loader thread, the first server of a version
+     * has to build it. Until it is opened, locales are loaded by this server
+     * and stay on its heap until they are cleared.
+     */
+    @NotNull
+    private CompletableFuture<Void> openSharedStore(String version) {
+        File directory = config.getSharedStore();
+        if (directory == null) return CompletableFuture.completedFuture(null);
+
+        LocaleConfig config = Translate.config;
+        LocaleCache loader = cache;
+        long start = System.nanoTime();
+        return loader.runAsync(() -> {
+            try {
+                SharedStore store = SharedStore.open(directory, version, config);
+                // A reload replaced the cache meanwhile, its own store is opened.
+                if (cache != loader) return;
+
+                sharedStore = store;
+                getLogger().info(String.format("Opened the shared store in %s in %.2f ms", directory, (System.nanoTime() - start) / 1e6));
+            } catch (IOException | RuntimeException e) {
+                getLogger().log(Level.WARNING, "Unable to open the shared store in " + directory + ", locales are loaded by this server", e);
+            }
+        });
+    }
+
+    private void warmUp(Set<Locale> locales) {
+        long start = System.nanoTime();
+
+        cache.warmUp(locales).whenComplete((times, t) -> {
+            if (t != null) {
+                getLogger().log(Level.WARNING, "Unable to warm up the locales", t);
+                return;
+            }
+            getLogger().info(String.format("Warmed up %d locales in %.2f ms", times.size(), (System.nanoTime() - start) / 1e6));
+            DEBUGGER.warmedUp(times);
+        });
+    }
+
     public static Plugin getPlugin() {
         return plugin;
     }
@@ -84,14 +192,188 @@ public final class Translate extends JavaPlugin {
         return DEBUGGER;
     }
 
+    /**
+     * Returns the configuration of the {@code config.yml}.
+     * @return {@link LocaleConfig}
+     */
+    @NotNull
+    static LocaleConfig getLocaleConfig() {
+        return config;
+    }
+
+    /**
+     * Returns the translations of the plugin's {@code lang} folder.
+     * @return {@link LocaleOverrides} or {@code null} without a server
+     */
+    @Nullable
+    static LocaleOverrides getOverrides() {
+        return overrides;
+    }
+
+    /**
+     * Returns the store of all locales shared by the servers of the host.
+     * @return {@link SharedStore} or {@code null} if it is disabled
+     */
+    @Nullable
+    static SharedStore getSharedStore() {
+        return sharedStore;
+    }
+
+    /**
+     * Returns the {@code LocaleReader} of the locale, it is loaded into the
+     * cache if necessary.
+     * @param locale The locale
+     * @return {@link LocaleReader} of the locale
+     */
+    @NotNull
+    static LocaleReader getReader(@NotNull Locale locale) {
+        return cache.get(locale);
+    }
+
+    /**
+     * Returns the {@code LocaleReader} of the locale, as configured with
+     * {@link LocaleConfig#isNonBlocking()}.
+     * @param locale The locale
+     * @return {@link LocaleReader} of the locale
+     */
+    @NotNull
+    private static LocaleReader reader(@NotNull Locale locale) {
+        return config.isNonBlocking() ? cache.getNow(locale) : cache.get(locale);
+    }
+
+    /**
+     * Returns the {@code LocaleReader} of the locale, if it isn't loaded yet it
+     * is loaded on a loader thread. Concurrent requests for the same locale
+     * share one load.
+     * @param locale The locale
+     * @return A future completed with the {@link LocaleReader} of the locale
+     */
+    @NotNull
+    static CompletableFuture<LocaleReader> getLocaleReaderAsync(@NotNull Locale locale) {
+        return cache.getAsync(locale);
+    }
+
+    /**
+     * Loads the locale in the background, so translating it later doesn't
+     * block. If the locale is already loaded, the future is completed
+     * immediately.
+     * @param locale The locale to load
+     * @return A future completed with the locale when it is loaded
+     */
+    @NotNull
+    public static CompletableFuture<Locale> preload(@NotNull Locale locale) {
+        return getLocaleReaderAsync(locale).thenApply(reader -> locale);
+    }
+
     /**
      * Returns the current local the player is using.
+     * <br>
+     * The locale of online players is cached. Locale codes this API doesn't
+     * know are resolved by their language or to the {@code default-locale} of
+     * the {@code config.yml}, this never throws.
      * @param p The player
      * @return {@link Locale} the player's locale
      */
     @NotNull
     public static Locale getLocale(@NotNull Player p) {
-        return Locale.valueOf(p.getLocale());
+        Locale locale = index.getLocale(p.getUniqueId());
+        return locale != null ? locale : LocaleResolver.resolve(p.getLocale());
+    }
+
+    /**
+     * Returns the online players using the locale, in example to build
+     * scoreboards or holograms once per locale instead of once per player.
+     * <br>
+     * Players are added once their locale is known, shortly after they
+     * joined.
+     * @param locale The locale
+     * @return A live, unmodifiable view of the players using the locale
+     */
+    @NotNull
+    public static Collection<Player> getPlayers(@NotNull Locale locale) {
+        return index.getPlayers(locale);
+    }
+
+    /**
+     * Returns the locales used by at least one online player.
+     * @return A live, unmodifiable view of the used locales
+     * @see Translate#getPlayers(Locale)
+     */
+    @NotNull
+    public static Set<Locale> getActiveLocales() {
+        return index.getActiveLocales();
+    }
+
+    /**
+     * Sends the translation of the key to every online player. The key is
+     * translated once per used locale, not once per player.
+     * @param key The key to translate, it is sent as it is if the key does
+     *            not exist
+     * @param args The arguments of the translation's placeholders
+     * @return The amount of players the message was sent to
+     */
+    public static int broadcast(@NotNull String key, @NotNull Object... args) {
+        return broadcast(locale -> {
+            String value = format(key, locale, args);
+            return value != null ? value : key;
+        });
+    }
+
+    /**
+     * Sends a message to every online player. The message is created once per
+     * used locale, not once per player.
+     * @param message Creates the message of a locale, {@code null} skips the
+     *                players of the locale
+     * @return The amount of players the message was sent to
+     */
+    public static int broadcast(@NotNull Function<Locale, String> message) {
+        int count = 0;
+        for (Map.Entry<Locale, List<Player>> entry : onlinePlayers().entrySet()) {
+            String text = message.apply(entry.getKey());
+            if (text == null) continue;
+
+            for (Player p : entry.getValue()) {
+                p.sendMessage(text);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Sends components to every online player. The components are created
+     * once per used locale, not once per player.
+     * @param components Creates the components of a locale, {@code null}
+     *                   skips the players of the locale
+     * @return The amount of players the components were sent to
+     */
+    public static int broadcastComponents(@NotNull Function<Locale, BaseComponent[]> components) {
+        int count = 0;
+        for (Map.Entry<Locale, List<Player>> entry : onlinePlayers().entrySet()) {
+            BaseComponent[] message = components.apply(entry.getKey());
+            if (message == null) continue;
+
+            for (Player p : entry.getValue()) {
+                p.spigot().sendMessage(message);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Groups every online player by their locale. Unlike
+     * {@link Translate#getPlayers(Locale)} this includes players whose locale
+     * isn't known yet, they are grouped by their client's locale.
+     * @return The online players of every used locale
+     */
+    @NotNull
+    private static Map<Locale, List<Player>> onlinePlayers() {
+        Map<Locale, List<Player>> players = new EnumMap<>(Locale.class);
+        for (Player p : Bukkit.getOnlinePlayers()) {
+            players.computeIfAbsent(getLocale(p), locale -> new ArrayList<>()).add(p);
+        }
+        return players;
     }
 
     /**
@@ -102,7 +384,68 @@ public final class Translate extends JavaPlugin {
      */
     @Nullable
     public static String getCustomValue(@NotNull String key, @NotNull Locale locale) {
-        return CACHE.getUnchecked(locale).getValue(key);
+        return reader(locale).getValue(key);
+    }
+
+    /**
+     * Returns the translation of the key's value with its placeholders, like
+     * {@code %s} or {@code %1$s}, filled by the arguments.
+     * <br>
+     * The translation is compiled once per locale and key, formatting it
+     * doesn't parse the translation again like {@link String#format} does.
+     * Placeholders without argument are kept as they are.
+     * @param key The key to translate
+     * @param locale The locale to translate
+     * @param args The arguments of the placeholders
+     * @return Formatted translation of the key or {@code null} if the key does
+     *         not exist
+     */
+    @Nullable
+    public static String format(@NotNull String key, @NotNull Locale locale, @NotNull Object... args) {
+        FormatTemplate template = reader(locale).getTemplate(key);
+        return template == null ? null : template.format(args);
+    }
+
+    /**
+     * Returns the translation of the key's value with its placeholders filled
+     * by the arguments.
+     * @param key The key to translate
+     * @param p The player whose locale is used
+     * @param args The arguments of the placeholders
+     * @return Formatted translation of the key or {@code null} if the key does
+     *         not exist
+     * @see Translate#format(String, Locale, Object...)
+     */
+    @Nullable
+    public static String format(@NotNull String key, @NotNull Player p, @NotNull Object... args) {
+        return format(key, getLocale(p), args);
+    }
+
+    /**
+     * Returns the translation of the key's value without blocking. If the
+     * locale isn't loaded yet, it is loaded in the background and the
+     * translation of {@link Locale#en_us} is returned meanwhile, if that isn't
+     * loaded either the default is returned.
+     * @param key The key to translate
+     * @param locale The locale to translate
+     * @param def The default if the key does not exist or no translation is
+     *            loaded yet
+     * @return Translation of the key or the default
+     */
+    @Nullable
+    public static String getCustomValue(@NotNull String key, @NotNull Locale locale, @Nullable String def) {
+        LocaleReader reader = cache.getIfPresent(locale);
+        if (reader == null) {
+            cache.getAsync(locale);
+            reader = cache.getIfPresent(Locale.en_us);
+            if (reader == null) {
+                cache.getAsync(Locale.en_us);
+                return def;
+            }
+        }
+
+        String value = reader.getValue(key);
+        return value == null ? def : value;
     }
 
     /**
@@ -124,7 +467,34 @@ public final class Translate extends JavaPlugin {
      */
     @NotNull
     public static List<String> getAllKey(@NotNull Locale locale) {
-        return CACHE.getUnchecked(locale).getKeys();
+        return reader(locale).getKeys();
+    }
+
+    /**
+     * Returns all keys starting with the prefix in alphabetical order, in
+     * example all blocks with {@code block.minecraft.}. The keys are the same
+     * for every locale and aren't copied.
+     *
+     * @param prefix The prefix of the keys
+     * @return An unmodifiable view of the keys
+     */
+    @NotNull
+    public static List<String> getKeysWithPrefix(@NotNull String prefix) {
+        return LocaleKeys.withPrefix(prefix);
+    }
+
+    /**
+     * Returns all keys starting with the prefix and their translations in
+     * alphabetical order of the keys. The translations aren't copied.
+     *
+     * @param locale The chosen locale
+     * @param prefix The prefix of the keys, in example {@code block.minecraft.}
+     * @return An unmodifiable view of the keys and translations, the
+     *         translation is {@code null} if the locale has none
+     */
+    @NotNull
+    public static List<Map.Entry<String, String>> getEntries(@NotNull Locale locale, @NotNull String prefix) {
+        return reader(locale).getEntries(prefix);
     }
 
 
@@ -135,10 +505,9 @@ public final class Translate extends JavaPlugin {
 
     @NotNull
     public static String getBiome(@NotNull Locale locale, @NotNull Biome biome) {
-        String name = biome.name().toLowerCase();
-        if (name.equals("custom")) return "Custom";
+        if (biome == Biome.CUSTOM) return "Custom";
 
-        return CACHE.getUnchecked(locale).getValue("biome.minecraft." + name);
+        return reader(locale).translate(KeyTable.BIOME, biome.ordinal());
     }
 
 
@@ -149,16 +518,7 @@ public final class Translate extends JavaPlugin {
 
     @NotNull
     public static String getMaterial(@NotNull Locale locale, @NotNull Material mat) {
-        LocaleReader reader = CACHE.getUnchecked(locale);
-        String name = mat.getKey().getKey();
-
-        if (name.contains("wall_")) name = name.replace("wall_", "");
-
-        if (mat.isBlock()) {
-            return reader.getValue("block.minecraft." + name);
-        } else {
-            return reader.getValue("item.minecraft." + name);
-        }
+        return reader(locale).translate(KeyTable.MATERIAL, mat.ordinal());
     }
 
     /**
@@ -182,29 +542,7 @@ public final class Translate extends JavaPlugin {
 
     @NotNull
     public static String getPotion(@NotNull Locale locale, @NotNull PotionType type, @NotNull PotionSort sort) {
-        String name = type.name();
-        switch (type) {
-            case REGEN:
-                name = type.getEffectType().getName();
-                break;
-            case INSTANT_HEAL:
-                name = "HEALING";
-                break;
-            case INSTANT_DAMAGE:
-                name = "HARMING";
-                break;
-            case JUMP:
-                name = "LEAPING";
-                break;
-            case UNCRAFTABLE:
-                name = "EMPTY";
-                break;
-            case SPEED:
-                name = "SWIFTNESS";
-                break;
-        }
-
-        return CACHE.getUnchecked(locale).getValue("item.minecraft." + sort + ".effect." + name.toLowerCase());
+        return reader(locale).translate(KeyTable.POTION, KeyTable.indexOf(type, sort));
     }
 
 
@@ -215,42 +553,13 @@ public final class Translate extends JavaPlugin {
 
     @Nullable
     public static String getEffect(@NotNull Locale locale, @Nullable PotionEffectType type) {
-        if (type == null) {
-            return CACHE.getUnchecked(locale).getValue("effect.none");
-        }
+        LocaleReader reader = reader(locale);
+        int index = KeyTable.indexOf(type);
 
-        String name = type.getName();
-        switch (type.getId()) {
-            case 2:
-                name = "SLOWNESS";
-                break;
-            case 3:
-                name = "HASTE";
-                break;
-            case 4:
-                name = "MINING_FATIGUE";
-                break;
-            case 5:
-                name = "STRENGTH";
-                break;
-            case 6:
-                name = "INSTANT_HEALTH";
-                break;
-            case 7:
-                name = "INSTANT_DAMAGE";
-                break;
-            case 8:
-                name = "JUMP_BOOST";
-                break;
-            case 9:
-                name = "NAUSEA";
-                break;
-            case 11:
-                name = "RESISTANCE";
-                break;
-        }
+        // Effects registered after the table was created are not indexed.
+        if (index < 0) return reader.getValue(KeyTable.effectKey(type));
 
-        return CACHE.getUnchecked(locale).getValue("effect.minecraft." + name.toLowerCase());
+        return reader.translate(KeyTable.EFFECT, index);
     }
 
 
@@ -261,7 +570,13 @@ public final class Translate extends JavaPlugin {
 
     @Nullable
     public static String getEnchantment(@NotNull Locale locale, @NotNull Enchantment ench) {
-        return CACHE.getUnchecked(locale).getValue("enchantment.minecraft." + ench.getKey().getKey());
+        LocaleReader reader = reader(locale);
+        int index = KeyTable.indexOf(ench);
+
+        // Enchantments registered after the table was created are not indexed.
+        if (index < 0) return reader.getValue("enchantment.minecraft." + ench.getKey().getKey());
+
+        return reader.translate(KeyTable.ENCHANTMENT, index);
     }
 
 
@@ -272,10 +587,7 @@ public final class Translate extends JavaPlugin {
 
     @NotNull
     public static String getEntity(@NotNull Locale locale, @NotNull EntityType type) {
-        String name = type.getName();
-        if (name == null) return CACHE.getUnchecked(locale).getValue("entity.notFound");
-
-        return CACHE.getUnchecked(locale).getValue("entity.minecraft." + name.toLowerCase());
+        return reader(locale).translate(KeyTable.ENTITY, type.ordinal());
     }
 
 
@@ -286,7 +598,7 @@ public final class Translate extends JavaPlugin {
 
     @NotNull
     public static String getVillager(@NotNull Locale locale, @NotNull Villager.Profession type) {
-        return CACHE.getUnchecked(locale).getValue("entity.minecraft.villager." + type.name().toLowerCase());
+        return reader(locale).translate(KeyTable.VILLAGER, type.ordinal());
     }
 
     @Nullable
@@ -299,7 +611,7 @@ public final class Translate extends JavaPlugin {
         Preconditions.checkArgument(career.getClass().getSimpleName().equals("Career"), "Are you using Villager.Career ???");
 
         String name = career.toString().replace("_", "").toLowerCase();
-        return CACHE.getUnchecked(locale).getValue("entity.minecraft.villager." + name);
+        return reader(locale).getValue("entity.minecraft.villager." + name);
     }
 
 
@@ -310,6 +622,202 @@ public final class Translate extends JavaPlugin {
 
     @NotNull
     public static String getTropicalFish(@NotNull Locale locale, @NotNull TropicalFish.Pattern type) {
-        return CACHE.getUnchecked(locale).getValue("entity.minecraft.tropical_fish.type." + type.name().toLowerCase());
+        return reader(locale).translate(KeyTable.TROPICAL_FISH, type.ordinal());
+    }
+
+    /**
+     * Returns the key whose translation is the name, in example
+     * {@code block.minecraft.stone} for {@code "stein"} in {@link Locale#de_de}.
+     * Names of biomes, blocks, effects, enchantments, entities and items are
+     * found regardless of case and accents.
+     * <br>
+     * This never blocks, the names of a locale are indexed in the background
+     * the first time they are looked up and {@code null} is returned until
+     * the index is ready. Use {@link #getKeyByNameAsync(Locale, String)} to
+     * wait for it.
+     * @param locale The locale of the name
+     * @param name The translated name
+     * @return The key or {@code null} if no translation matches or the names
+     * aren't indexed yet
+     */
+    @Nullable
+    public static String getKeyByName(@NotNull Locale locale, @NotNull String name) {
+        NameIndex names = cache.getNamesNow(locale);
+        return names == null ? null : getKey(names, name);
+    }
+
+    /**
+     * Returns the key whose translation is the name, the names of the locale
+     * are indexed first if necessary.
+     * @param locale The locale of the name
+     * @param name The translated name
+     * @return A future completed with the key or {@code null} if no
+     * translation matches
+     * @see Translate#getKeyByName(Locale, String)
+     */
+    @NotNull
+    public static CompletableFuture<String> getKeyByNameAsync(@NotNull Locale locale, @NotNull String name) {
+        return cache.getNames(locale).thenApply(names -> getKey(names, name));
+    }
+
+    /**
+     * Returns the material whose translation is the name.
+     * @param locale The locale of the name
+     * @param name The translated name
+     * @return The material or {@code null} if no translation matches or the
+     * names aren't indexed yet
+     * @see Translate#getKeyByName(Locale, String)
+     */
+    @Nullable
+    public static Material getMaterialByName(@NotNull Locale locale, @NotNull String name) {
+        return (Material) getConstant(locale, KeyTable.MATERIAL, name);
+    }
+
+    /**
+     * Returns the material whose translation is the name, the names of the
+     * locale are indexed first if necessary.
+     * @param locale The locale of the name
+     * @param name The translated name
+     * @return A future completed with the material or {@code null} if no
+     * translation matches
+     * @see Translate#getMaterialByName(Locale, String)
+     */
+    @NotNull
+    public static CompletableFuture<Material> getMaterialByNameAsync(@NotNull Locale locale, @NotNull String name) {
+        return cache.getNames(locale).thenApply(names -> (Material) names.getConstant(KeyTable.MATERIAL, name));
+    }
+
+    /**
+     * Returns the entity type whose translation is the name.
+     * @param locale The locale of the name
+     * @param name The translated name
+     * @return The entity type or {@code null} if no translation matches or the
+     * names aren't indexed yet
+     * @see Translate#getKeyByName(Locale, String)
+     */
+    @Nullable
+    public static EntityType getEntityByName(@NotNull Locale locale, @NotNull String name) {
+        return (EntityType) getConstant(locale, KeyTable.ENTITY, name);
+    }
+
+    /**
+     * Returns the entity type whose translation is the name, the names of the
+     * locale are indexed first if necessary.
+     * @param locale The locale of the name
+     * @param name The translated name
+     * @return A future completed with the entity type or {@code null} if no
+     * translation matches
+     * @see Translate#getEntityByName(Locale, String)
+     */
+    @NotNull
+    public static CompletableFuture<EntityType> getEntityByNameAsync(@NotNull Locale locale, @NotNull String name) {
+        return cache.getNames(locale).thenApply(names -> (EntityType) names.getConstant(KeyTable.ENTITY, name));
+    }
+
+    /**
+     * Returns the enchantment whose translation is the name.
+     * @param locale The locale of the name
+     * @param name The translated name
+     * @return The enchantment or {@code null} if no translation matches or the
+     * names aren't indexed yet
+     * @see Translate#getKeyByName(Locale, String)
+     */
+    @Nullable
+    public static Enchantment getEnchantmentByName(@NotNull Locale locale, @NotNull String name) {
+        return (Enchantment) getConstant(locale, KeyTable.ENCHANTMENT, name);
+    }
+
+    /**
+     * Returns the enchantment whose translation is the name, the names of the
+     * locale are indexed first if necessary.
+     * @param locale The locale of the name
+     * @param name The translated name
+     * @return A future completed with the enchantment or {@code null} if no
+     * translation matches
+     * @see Translate#getEnchantmentByName(Locale, String)
+     */
+    @NotNull
+    public static CompletableFuture<Enchantment> getEnchantmentByNameAsync(@NotNull Locale locale,
+                                                                           @NotNull String name) {
+        return cache.getNames(locale).thenApply(names -> (Enchantment) names.getConstant(KeyTable.ENCHANTMENT, name));
+    }
+
+    @Nullable
+    private static String getKey(NameIndex names, String name) {
+        String[] keys = names.getKeys(name);
+        return keys.length == 0 ? null : keys[0];
+    }
+
+    @Nullable
+    private static Object getConstant(Locale locale, KeyTable table, String name) {
+        NameIndex names = cache.getNamesNow(locale);
+        return names == null ? null : names.getConstant(table, name);
+    }
+
+    /**
+     * Returns the names starting with the prefix in the player's locale, in
+     * example for tab completion of item or mob names.
+     * @param p The player
+     * @param prefix The start of the name, case and accents are ignored
+     * @param limit The maximum amount of names
+     * @return The translated names in alphabetical order
+     * @see Translate#completeNames(Locale, String, int)
+     */
+    @NotNull
+    public static List<String> completeNames(@NotNull Player p, @NotNull String prefix, int limit) {
+        return completeNames(getLocale(p), prefix, limit);
+    }
+
+    /**
+     * Returns the names of biomes, blocks, effects, enchantments, entities
+     * and items starting with the prefix.
+     * <br>
+     * This never blocks, while the names of the locale are indexed in the
+     * background an empty list is returned.
+     * @param locale The locale of the names
+     * @param prefix The start of the name, case and accents are ignored
+     * @param limit The maximum amount of names
+     * @return The translated names in alphabetical order
+     * @throws IllegalArgumentException if the limit is negative
+     */
+    @NotNull
+    public static List<String> completeNames(@NotNull Locale locale, @NotNull String prefix, int limit) {
+        Preconditions.checkArgument(limit >= 0, "The limit must not be negative");
+        NameIndex names = cache.getNamesNow(locale);
+        return names == null ? Collections.emptyList() : names.complete(prefix, limit);
+    }
+
+    /**
+     * Returns the names similar to the query in the player's locale, the most
+     * similar first.
+     * @param p The player
+     * @param query The possibly misspelled name
+     * @param limit The maximum amount of names
+     * @return The translated names
+     * @see Translate#searchNames(Locale, String, int)
+     */
+    @NotNull
+    public static List<String> searchNames(@NotNull Player p, @NotNull String query, int limit) {
+        return searchNames(getLocale(p), query, limit);
+    }
+
+    /**
+     * Returns the names of biomes, blocks, effects, enchantments, entities
+     * and items similar to the query, the most similar first. Names with a
+     * few typos are still found, in example {@code "diamnd swrod"}.
+     * <br>
+     * This never blocks, while the names of the locale are indexed in the
+     * background an empty list is returned.
+     * @param locale The locale of the names
+     * @param query The possibly misspelled name
+     * @param limit The maximum amount of names
+     * @return The translated names
+     * @throws IllegalArgumentException if the limit is negative
+     */
+    @NotNull
+    public static List<String> searchNames(@NotNull Locale locale, @NotNull String query, int limit) {
+        Preconditions.checkArgument(limit >= 0, "The limit must not be negative");
+        NameIndex names = cache.getNamesNow(locale);
+        return names == null ? Collections.emptyList() : names.search(query, limit);
     }
 }
@@ -0,0 +1,206 @@
+//  Copyright (C) 2022 Unp1xelt. All rights reserved.
+//
+//  This Source Code Form is subject to the terms of the Mozilla Public
+//  License, v. 2.0. If a copy of the MPL was not distributed with this
+//  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+//
+//  This Source Code Form is "Incompatible With Secondary Licenses", as
+//  defined by the Mozilla Public License, v. 2.0.
+
+package de.unpixelt.locale;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Utf8Store keeps the values of a locale as UTF-8 outside of the heap, in a
+ * direct {@code ByteBuffer} indexed by the id of their key. Values are decoded
+ * when they are requested and kept in a small cache, in the slot of their id.
+ * A decoded value replaces the one in its slot, reading a cached value neither
+ * allocates nor waits for a lock.
+ * <p>
+ * A store is either encoded from the values of a reader or a view of a table
+ * in the memory mapped {@link SharedStore}. A table consists of the amount of
+ * keys, the end offset of every value, or its bitwise complement if it is
+ * absent, and all values as one UTF-8 encoded block. A value starts at the end
+ * of the value before it.
+ *
+ * @see LocaleConfig#isOffHeap()
+ */
+final class Utf8Store {
+
+    /** The version of the table layout. */
+    static final int VERSION = 2;
+
+    private final ByteBuffer data;
+    /** The end of every value, its bitwise complement if absent. */
+    private final IntBuffer ends;
+    private final boolean mapped;
+    private final Entry[] cache;
+
+    /**
+     * Encodes the values.
+     *
+     * @param values The values indexed by the id of their key
+     * @param cacheSize The amount of decoded values kept
+     */
+    Utf8Store(@NotNull String[] values, int cacheSize) {
+        byte[][] encoded = encode(values);
+        int[] ends = new int[values.length];
+
+        this.data = ByteBuffer.allocateDirect(ends(encoded, ends));
+        for (byte[] bytes : encoded) {
+            if (bytes != null) data.put(bytes);
+        }
+        this.ends = IntBuffer.wrap(ends);
+        this.mapped = false;
+        this.cache = new Entry[cacheSize];
+    }
+
+    /**
+     * Constructs a view of a table, the table is not copied.
+     *
+     * @param table The buffer positioned at the start of the table
+     * @param cacheSize The amount of decoded values kept
+     * @throws IOException if the table doesn't match the dictionary
+     */
+    Utf8Store(@NotNull ByteBuffer table, int cacheSize) throws IOException {
+        int count = table.getInt();
+        if (count != LocaleKeys.size()) {
+            throw new IOException("Table has " + count + " keys, expected " + LocaleKeys.size());
+        }
+
+        ByteBuffer view = table.slice();
+        view.limit(count * Integer.BYTES);
+        this.ends = view.asIntBuffer();
+
+        view = table.slice();
+        view.position(count * Integer.BYTES);
+        view.limit(view.position() + (count == 0 ? 0 : end(ends.get(count - 1))));
+        this.data = view.slice();
+        this.mapped = true;
+        this.cache = new Entry[cacheSize];
+    }
+
+    /**
+     * Writes the values as a table, padded to a multiple of four bytes.
+     *
+     * @param out The stream to write to
+     * @param values The values indexed by the id of their key
+     * @throws IOException if an I/O error occurs
+     */
+    static void write(@NotNull DataOutputStream out, @NotNull String[] values) throws IOException {
+        byte[][] encoded = encode(values);
+        int[] ends = new int[values.length];
+        int length = ends(encoded, ends);
+
+        out.writeInt(values.length);
+        for (int end : ends) {
+            out.writeInt(end);
+        }
+        for (byte[] bytes : encoded) {
+            if (bytes != null) out.write(bytes);
+        }
+        for (int padding = -length & 3; padding > 0; padding--) {
+            out.write(0);
+        }
+    }
+
+    /**
+     * Returns the value of the key with the id.
+     *
+     * @param id The id of the key
+     * @return The value or {@code null} if the locale has no translation
+     */
+    @Nullable
+    String get(int id) {
+        int end = ends.get(id);
+        if (end < 0) return null;
+
+        int slot = id % cache.length;
+        Entry entry = cache[slot];
+        if (entry != null && entry.id == id) return entry.value;
+
+        int start = id == 0 ? 0 : end(ends.get(id - 1));
+        byte[] bytes = new byte[end - start];
+        ByteBuffer view = data.duplicate();
+        view.position(start);
+        view.get(bytes);
+
+        String value = new String(bytes, StandardCharsets.UTF_8);
+        cache[slot] = new Entry(id, value);
+        return value;
+    }
+
+    /**
+     * Returns the estimated amount of bytes of the store, on and off the heap.
+     * Mapped tables are shared and only their cache is counted, with an entry
+     * and a decoded value of average length per cached value.
+     *
+     * @return The estimated size in bytes
+     */
+    int getWeight() {
+        int present = 0;
+        for (int id = 0; id < ends.capacity(); id++) {
+            if (ends.get(id) >= 0) present++;
+        }
+        long average = present == 0 ? 0 : data.capacity() / present;
+
+        long table = mapped ? 0 : data.capacity() + 4L * ends.capacity();
+        return (int) Math.min(table + 4L * cache.length + cache.length * (80 + 2 * average), Integer.MAX_VALUE);
+    }
+
+    private static byte[][] encode(String[] values) {
+        byte[][] encoded = new byte[values.length][];
+        for (int id = 0; id < values.length; id++) {
+            if (values[id] != null) encoded[id] = values[id].getBytes(StandardCharsets.UTF_8);
+        }
+        return encoded;
+    }
+
+    /**
+     * Fills the end offsets of the encoded values.
+     *
+     * @return The length of all values
+     */
+    private static int ends(byte[][] encoded, int[] ends) {
+        int length = 0;
+        for (int id = 0; id < encoded.length; id++) {
+            if (encoded[id] == null) {
+                ends[id] = ~length;
+                continue;
+            }
+            length += encoded[id].length;
+            ends[id] = length;
+        }
+        return length;
+    }
+
+    /**
+     * Returns the end offset of an entry, whether its value is absent or not.
+     */
+    private static int end(int entry) {
+        return entry < 0 ? ~entry : entry;
+    }
+
+    /**
+     * A decoded value in the cache. The fields are final, so an entry read
+     * without a lock is always complete.
+     */
+    private static final class Entry {
+
+        final int id;
+        final String value;
+
+        Entry(int id, String value) {
+            this.id = id;
+            this.value = value;
+        }
+    }
+}
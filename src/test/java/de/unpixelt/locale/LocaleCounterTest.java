@@ -0,0 +1,147 @@
+//  Copyright (C) 2022 Unp1xelt. All rights reserved.
+//
+//  This Source Code Form is subject to the terms of the Mozilla Public
+//  License, v. 2.0. If a copy of the MPL was not distributed with this
+//  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+//
+//  This Source Code Form is "Incompatible With Secondary Licenses", as
+//  defined by the Mozilla Public License, v. 2.0.
+
+package de.unpixelt.locale;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Stress tests of the lock-free counts of {@link LocaleCounter}, with many
+ * threads incrementing and decrementing while another one sweeps.
+ */
+class LocaleCounterTest {
+
+    private static final int THREADS = 8;
+    private static final int ITERATIONS = 100_000;
+    private static final Locale[] LOCALES = {Locale.en_us, Locale.de_de, Locale.fr_fr, Locale.ja_jp};
+
+    private LocaleCache cache;
+    private LocaleCounter counter;
+
+    @BeforeEach
+    void setUp() {
+        LocaleConfig config = new LocaleConfig();
+        cache = new LocaleCache(config);
+        counter = new LocaleCounter(cache, config);
+    }
+
+    @AfterEach
+    void tearDown() {
+        cache.shutdown();
+    }
+
+    @Test
+    void balancedUpdatesEndAtZero() throws InterruptedException {
+        run(() -> {
+            for (int i = 0; i < ITERATIONS; i++) {
+                Locale locale = LOCALES[ThreadLocalRandom.current().nextInt(LOCALES.length)];
+                counter.increment(locale);
+                counter.decrement(locale);
+            }
+        });
+
+        for (Locale locale : LOCALES) {
+            assertEquals(0, counter.getCount(locale), locale.name());
+            assertFalse(counter.isUsed(locale), locale.name());
+        }
+    }
+
+    @Test
+    void incrementsAreNeverLost() throws InterruptedException {
+        run(() -> {
+            for (int i = 0; i < ITERATIONS; i++) {
+                Locale locale = LOCALES[i % LOCALES.length];
+                counter.increment(locale);
+                if (i % 2 == 0) counter.decrement(locale);
+            }
+        });
+
+        for (Locale locale : LOCALES) {
+            assertEquals(THREADS * expected(locale), counter.getCount(locale), locale.name());
+            assertEquals(expected(locale) > 0, counter.isUsed(locale), locale.name());
+        }
+    }
+
+    @Test
+    void countsNeverGoNegative() throws InterruptedException {
+        run(() -> {
+            for (int i = 0; i < ITERATIONS; i++) {
+                counter.decrement(Locale.de_de);
+                counter.decrement(null);
+            }
+        });
+
+        assertEquals(0, counter.getCount(Locale.de_de));
+        counter.increment(Locale.de_de);
+        assertEquals(1, counter.getCount(Locale.de_de));
+    }
+
+    /**
+     * Returns how many increments of a single thread of
+     * {@link #incrementsAreNeverLost()} are not decremented again.
+     */
+    private static int expected(Locale locale) {
+        int index = 0;
+        while (LOCALES[index] != locale) index++;
+
+        int count = 0;
+        for (int i = index; i < ITERATIONS; i += LOCALES.length) {
+            if (i % 2 != 0) count++;
+        }
+        return count;
+    }
+
+    /**
+     * Runs the task on {@link #THREADS} threads at once while another thread
+     * keeps sweeping, and waits for all of them.
+     */
+    private void run(Runnable task) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean done = new AtomicBoolean();
+        List<Throwable> failures = new ArrayList<>();
+
+        Thread sweeper = new Thread(() -> {
+            while (!done.get()) counter.sweep();
+        });
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            threads.add(new Thread(() -> {
+                try {
+                    start.await();
+                    task.run();
+                } catch (Throwable t) {
+                    synchronized (failures) {
+                        failures.add(t);
+                    }
+                }
+            }));
+        }
+
+        sweeper.start();
+        threads.forEach(Thread::start);
+        start.countDown();
+        for (Thread thread : threads) thread.join();
+        done.set(true);
+        sweeper.join();
+
+        assertTrue(failures.isEmpty(), failures.toString());
+    }
+}
@@ -0,0 +1,120 @@
+//  Copyright (C) 2022 Unp1xelt. All rights reserved.
+//
+//  This Source Code Form is subject to the terms of the Mozilla Public
+//  License, v. 2.0. If a copy of the MPL was not distributed with this
+//  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+//
+//  This Source Code Form is "Incompatible With Secondary Licenses", as
+//  defined by the Mozilla Public License, v. 2.0.
+
+package de.unpixelt.locale;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.IntConsumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Stress tests of the first lookups of a {@link LocaleReader}, with many
+ * threads reading sections, key tables and templates that are not loaded yet.
+ * Every value has to equal the value of a reader that was loaded at once.
+ */
+class LocaleReaderTest {
+
+    private static final int THREADS = 8;
+    private static final Locale LOCALE = Locale.de_de;
+    private static final KeyTable[] TABLES = {KeyTable.BIOME, KeyTable.MATERIAL, KeyTable.ENTITY,
+            KeyTable.VILLAGER, KeyTable.TROPICAL_FISH};
+
+    private LocaleReader expected;
+    private LocaleReader reader;
+    private List<String> keys;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        expected = new LocaleReader(LOCALE);
+        expected.loadAll();
+        keys = expected.getKeys();
+        reader = new LocaleReader(LOCALE);
+    }
+
+    @Test
+    void valuesMatchLoadedReader() throws InterruptedException {
+        run(thread -> {
+            // Every thread starts at another section to race the first loads.
+            int start = keys.size() * thread / THREADS;
+            for (int i = 0; i < keys.size(); i++) {
+                String key = keys.get((start + i) % keys.size());
+                assertEquals(expected.getValue(key), reader.getValue(key), key);
+            }
+        });
+    }
+
+    @Test
+    void keyTablesMatchLoadedReader() throws InterruptedException {
+        run(thread -> {
+            for (int t = 0; t < TABLES.length; t++) {
+                KeyTable table = TABLES[(thread + t) % TABLES.length];
+                String[] values = table.resolve(expected);
+                for (int i = 0; i < values.length; i++) {
+                    assertEquals(values[i], reader.translate(table, i), table.key(i));
+                }
+            }
+        });
+    }
+
+    @Test
+    void templatesMatchLoadedReader() throws InterruptedException {
+        run(thread -> {
+            int start = keys.size() * thread / THREADS;
+            for (int i = 0; i < keys.size(); i++) {
+                String key = keys.get((start + i) % keys.size());
+                String value = expected.getValue(key);
+                if (value == null || !value.contains("%s")) continue;
+
+                Object[] args = {"Thread " + thread, "A", "B", "C", "D"};
+                String formatted = Objects.requireNonNull(reader.getTemplate(key), key).format(args);
+                assertEquals(FormatTemplate.compile(value).format(args), formatted, key);
+                assertTrue(reader.getTemplate(key) == reader.getTemplate(key), key);
+            }
+        });
+    }
+
+    /**
+     * Runs the task on {@link #THREADS} threads at once and waits for all of
+     * them. The task gets the index of its thread.
+     */
+    private void run(IntConsumer task) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Throwable> failures = new ArrayList<>();
+
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            int thread = i;
+            threads.add(new Thread(() -> {
+                try {
+                    start.await();
+                    task.accept(thread);
+                } catch (Throwable t) {
+                    synchronized (failures) {
+                        failures.add(t);
+                    }
+                }
+            }));
+        }
+
+        threads.forEach(Thread::start);
+        start.countDown();
+        for (Thread thread : threads) thread.join();
+
+        assertTrue(failures.isEmpty(), failures.toString());
+    }
+}